@@ -0,0 +1,105 @@
+package edu.uwm.cs351.bench;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.uwm.cs351.ArenaLexicon;
+import edu.uwm.cs351.Lexicon;
+import edu.uwm.cs351.TrieLexicon;
+
+/**
+ * Benchmarks for building a lexicon: one operation is building the whole
+ * lexicon from the input, so divide by size for the cost per string.
+ * <p>
+ * An unbalanced {@link Lexicon} can be measured with <code>-p backend=tree</code>,
+ * but adding sorted input to it one string at a time takes quadratic time,
+ * so that combination is only practical at the smallest size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xmx4g"})
+public class BuildBenchmark {
+
+	@Param({"10000", "1000000", "2097151"})
+	public int size;
+
+	@Param({"sorted", "random", "dictionary"})
+	public String input;
+
+	@Param({"balanced", "trie", "arena"})
+	public String backend;
+
+	private String[] keys;
+	private String[] sortedKeys;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		keys = Inputs.keys(input, size);
+		sortedKeys = Inputs.sorted(keys);
+	}
+
+	@Benchmark
+	public Object add() {
+		if (backend.equals("trie")) {
+			TrieLexicon lex = new TrieLexicon();
+			for (String s : keys) lex.add(s);
+			return lex;
+		}
+		if (backend.equals("arena")) {
+			ArenaLexicon lex = new ArenaLexicon();
+			for (String s : keys) lex.add(s);
+			return lex;
+		}
+		Lexicon lex = new Lexicon(backend.equals("balanced"));
+		for (String s : keys) lex.add(s);
+		return lex;
+	}
+
+	/** Adds the input as given: for sorted input, a Lexicon builds it directly. */
+	@Benchmark
+	public Object addAll() {
+		return addAll(keys);
+	}
+
+	/** Sorts a copy of the input first, as a loader would. */
+	@Benchmark
+	public Object sortThenAddAll() {
+		return addAll(Inputs.sorted(keys));
+	}
+
+	/** The bulk build alone, from input that is already sorted. */
+	@Benchmark
+	public Object addAllSorted() {
+		return addAll(sortedKeys);
+	}
+
+	private Object addAll(String[] array) {
+		if (backend.equals("trie")) {
+			TrieLexicon lex = new TrieLexicon();
+			lex.addAll(array, 0, array.length);
+			return lex;
+		}
+		if (backend.equals("arena")) {
+			ArenaLexicon lex = new ArenaLexicon();
+			lex.addAll(array, 0, array.length);
+			return lex;
+		}
+		Lexicon lex = new Lexicon(backend.equals("balanced"));
+		lex.addAll(array, 0, array.length);
+		return lex;
+	}
+}
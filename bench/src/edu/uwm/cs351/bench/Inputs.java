@@ -0,0 +1,118 @@
+package edu.uwm.cs351.bench;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates the strings the benchmarks work on.  Every generator is seeded,
+ * so each fork of a benchmark sees exactly the same input.
+ */
+final class Inputs {
+
+	/** System property naming the dictionary file; relative paths are from the working directory. */
+	static final String DICTIONARY_PROPERTY = "lexicon.dictionary";
+
+	private static final int BASE = 10000000;
+	private static final long SEED = 351;
+
+	private Inputs() {}
+
+	/**
+	 * Create the strings to insert.
+	 * @param kind "sorted" (increasing numbers, the worst case for an unbalanced tree),
+	 * 		"random" (the same numbers shuffled) or "dictionary" (words from the dictionary
+	 * 		file, in file order, numbered with a # to make more when the file has too few)
+	 * @param size number of distinct strings to create
+	 * @return array of that many distinct strings
+	 */
+	static String[] keys(String kind, int size) {
+		String[] keys = new String[size];
+		switch (kind) {
+		case "sorted":
+		case "random":
+			for (int i=0; i < size; ++i)
+				keys[i] = BASE + i + "";
+			if (kind.equals("random")) shuffle(keys, new Random(SEED));
+			break;
+		case "dictionary":
+			String[] words = dictionary();
+			for (int i=0; i < size; ++i) {
+				int round = i / words.length;
+				keys[i] = round == 0 ? words[i] : words[i % words.length] + "#" + round;
+			}
+			break;
+		default:
+			throw new IllegalArgumentException("unknown input kind: " + kind);
+		}
+		return keys;
+	}
+
+	/**
+	 * Create lookups for the given keys: half are keys, half are near misses.
+	 * @param keys the strings inserted
+	 * @param count number of lookups, a power of two
+	 * @return array of lookups in random order
+	 */
+	static String[] queries(String[] keys, int count) {
+		Random r = new Random(SEED + 1);
+		String[] queries = new String[count];
+		for (int i=0; i < count; ++i) {
+			String k = keys[r.nextInt(keys.length)];
+			queries[i] = i % 2 == 0 ? k : k + "x";
+		}
+		return queries;
+	}
+
+	/**
+	 * Create prefixes each matching a handful of keys: keys with their last
+	 * two characters removed.
+	 * @param keys the strings inserted
+	 * @param count number of prefixes, a power of two
+	 * @return array of prefixes in random order
+	 */
+	static String[] prefixes(String[] keys, int count) {
+		Random r = new Random(SEED + 2);
+		String[] prefixes = new String[count];
+		for (int i=0; i < count; ++i) {
+			String k = keys[r.nextInt(keys.length)];
+			prefixes[i] = k.substring(0, Math.max(0, k.length() - 2));
+		}
+		return prefixes;
+	}
+
+	/**
+	 * @param keys strings to sort
+	 * @return a sorted copy
+	 */
+	static String[] sorted(String[] keys) {
+		String[] copy = keys.clone();
+		Arrays.sort(copy);
+		return copy;
+	}
+
+	private static String[] dictionary() {
+		String file = System.getProperty(DICTIONARY_PROPERTY, "google-english-usa.txt");
+		try {
+			List<String> lines = Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8);
+			// drop duplicates and any weight column, keeping file order
+			return lines.stream().map(l -> l.split("\t", 2)[0]).filter(l -> !l.isEmpty())
+					.distinct().toArray(String[]::new);
+		} catch (IOException e) {
+			throw new UncheckedIOException("cannot read dictionary " + file + " (set -D" + DICTIONARY_PROPERTY + ")", e);
+		}
+	}
+
+	private static void shuffle(String[] a, Random r) {
+		for (int i=a.length - 1; i > 0; --i) {
+			int j = r.nextInt(i + 1);
+			String t = a[i];
+			a[i] = a[j];
+			a[j] = t;
+		}
+	}
+}
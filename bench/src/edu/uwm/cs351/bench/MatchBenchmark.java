@@ -0,0 +1,60 @@
+package edu.uwm.cs351.bench;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.uwm.cs351.Lexicon;
+
+/**
+ * Compares {@link Lexicon#consumeMatching} (which prunes subtrees whose
+ * common prefix cannot match) against filtering every string with the
+ * equivalent regular expression.  One operation is one whole query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xmx4g"})
+public class MatchBenchmark {
+
+	@Param({"1000000"})
+	public int size;
+
+	@Param({"1001?3?7", "10[23]??55*", "1?00000*", "*99999"})
+	public String pattern;
+
+	private Lexicon lex;
+	private Pattern regex;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		String[] keys = Inputs.sorted(Inputs.keys("sorted", size));
+		lex = new Lexicon(true);
+		lex.addAll(keys, 0, keys.length);
+		regex = Pattern.compile(pattern.replace("?", ".").replace("*", ".*"));
+	}
+
+	@Benchmark
+	public void consumeMatching(Blackhole bh) {
+		lex.consumeMatching(pattern, bh::consume);
+	}
+
+	@Benchmark
+	public void regexFilter(Blackhole bh) {
+		lex.consumeAll(s -> { if (regex.matcher(s).matches()) bh.consume(s); });
+	}
+}
@@ -0,0 +1,144 @@
+package edu.uwm.cs351.bench;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.uwm.cs351.ArenaLexicon;
+import edu.uwm.cs351.FrozenLexicon;
+import edu.uwm.cs351.Lexicon;
+import edu.uwm.cs351.TrieLexicon;
+
+/**
+ * Benchmarks for queries on a lexicon built once per trial.  Each operation
+ * is a single query, cycling through a fixed table of lookups (half present,
+ * half absent) or prefixes (each matching a handful of strings).
+ * <p>
+ * The backends have no common interface, so each benchmark dispatches on
+ * the backend itself; the check is the same for every backend.
+ * <p>
+ * The "tree" backend (an unbalanced {@link Lexicon}) is built by adding the
+ * keys one at a time in input order, so its shape depends on the input:
+ * sorted input makes it a single path.  Since that takes quadratic time
+ * to build, sorted input for "tree" is cut to the first {@link #TREE_SORTED_MAX} keys.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xmx4g"})
+public class QueryBenchmark {
+
+	private static final int QUERIES = 1 << 16;
+	
+	/** Most keys added to the unbalanced tree from sorted input. */
+	public static final int TREE_SORTED_MAX = 20000;
+
+	@Param({"10000", "1000000", "2097151"})
+	public int size;
+
+	@Param({"sorted", "random", "dictionary"})
+	public String input;
+
+	@Param({"balanced", "tree", "trie", "frozen", "arena"})
+	public String backend;
+
+	private Lexicon tree;
+	private TrieLexicon trie;
+	private FrozenLexicon frozen;
+	private ArenaLexicon arena;
+	private String[] queries;
+	private String[] prefixes;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		String[] keys = Inputs.keys(input, size);
+		switch (backend) {
+		case "balanced":
+			tree = new Lexicon(true);
+			String[] sorted = Inputs.sorted(keys);
+			tree.addAll(sorted, 0, sorted.length);
+			break;
+		case "tree":
+			if (input.equals("sorted") && keys.length > TREE_SORTED_MAX)
+				keys = Arrays.copyOf(keys, TREE_SORTED_MAX);
+			tree = new Lexicon(false);
+			for (String k : keys) tree.add(k);
+			break;
+		case "trie":
+			trie = new TrieLexicon();
+			trie.addAll(keys, 0, keys.length);
+			break;
+		case "frozen":
+			Lexicon lex = new Lexicon(true);
+			lex.addAll(keys, 0, keys.length);
+			frozen = lex.freeze();
+			break;
+		case "arena":
+			arena = new ArenaLexicon();
+			arena.addAll(keys, 0, keys.length);
+			break;
+		default:
+			throw new IllegalArgumentException("unknown backend: " + backend);
+		}
+		queries = Inputs.queries(keys, QUERIES);
+		prefixes = Inputs.prefixes(keys, QUERIES);
+	}
+
+	private int nextIndex() {
+		return next++ & (QUERIES - 1);
+	}
+
+	@Benchmark
+	public boolean contains() {
+		String q = queries[nextIndex()];
+		if (tree != null) return tree.contains(q);
+		if (trie != null) return trie.contains(q);
+		if (arena != null) return arena.contains(q);
+		return frozen.contains(q);
+	}
+
+	@Benchmark
+	public String getNext() {
+		String q = queries[nextIndex()];
+		if (tree != null) return tree.getNext(q);
+		if (trie != null) return trie.getNext(q);
+		if (arena != null) return arena.getNext(q);
+		return frozen.getNext(q);
+	}
+
+	@Benchmark
+	public void consumeAllWithPrefix(Blackhole bh) {
+		String p = prefixes[nextIndex()];
+		Consumer<String> consumer = bh::consume;
+		if (tree != null) tree.consumeAllWithPrefix(consumer, p);
+		else if (trie != null) trie.consumeAllWithPrefix(consumer, p);
+		else if (arena != null) arena.consumeAllWithPrefix(consumer, p);
+		else frozen.consumeAllWithPrefix(consumer, p);
+	}
+
+	/** Copies the whole lexicon: compare against size for the cost per string. */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public String[] toArray() {
+		if (tree != null) return tree.toArray(null);
+		if (trie != null) return trie.toArray(null);
+		if (arena != null) return arena.toArray(null);
+		return frozen.toArray(null);
+	}
+}
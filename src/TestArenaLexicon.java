@@ -0,0 +1,160 @@
+import java.util.ArrayList;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import edu.uwm.cs351.ArenaLexicon;
+import edu.uwm.cs351.Lexicon;
+
+
+public class TestArenaLexicon extends TestCase {
+
+	ArenaLexicon lex;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		lex = new ArenaLexicon();
+	}
+
+	public void test00() {
+		assertEquals(0, lex.size());
+		assertNull(lex.getMin());
+		assertFalse(lex.contains(""));
+		assertFalse(lex.contains(null));
+		assertNull(lex.getNext(""));
+		assertEquals(0, lex.arenaLength());
+	}
+
+	public void test01() {
+		assertTrue(lex.add("apple"));
+		assertFalse(lex.add("apple"));
+		assertTrue(lex.add("app"));
+		assertTrue(lex.add("apply"));
+		assertTrue(lex.add("ape"));
+		assertTrue(lex.add(""));
+		assertEquals(5, lex.size());
+		assertTrue(lex.contains("app"));
+		assertTrue(lex.contains(""));
+		assertFalse(lex.contains("ap"));
+		assertFalse(lex.contains("appl"));
+		assertFalse(lex.contains("apples"));
+		assertEquals("", lex.getMin());
+		assertEquals(16, lex.arenaLength());
+	}
+
+	public void test02() {
+		for (String s : new String[] {"but", "hex", "up", "down", "user"})
+			lex.add(s);
+		assertEquals("but", lex.getNext("burn"));
+		assertEquals("down", lex.getNext("button"));
+		assertEquals("but", lex.getNext(""));
+		assertEquals("user", lex.getNext("up"));
+		assertNull(lex.getNext("users"));
+		try {
+			lex.getNext(null);
+			assertFalse("getNext should not accept null", true);
+		} catch (NullPointerException ex) {
+			assertTrue(true);
+		}
+		try {
+			lex.add(null);
+			assertFalse("add should not accept null", true);
+		} catch (NullPointerException ex) {
+			assertTrue(true);
+		}
+	}
+
+	public void test03() {
+		for (String s : new String[] {"landlord", "landfill", "label", "lady", "last", "lake", "land",
+				"landing", "labor", "lamp", "lane", "large"})
+			lex.add(s);
+		assertEquals("[land, landfill, landing, landlord, lane]", consume("lan"));
+		assertEquals("[land, landfill, landing, landlord]", consume("land"));
+		assertEquals("[]", consume("landx"));
+		assertEquals("[]", consume("landlords"));
+		assertEquals("[label, labor]", consume("lab"));
+		assertEquals(12, lex.toArray(null).length);
+		assertEquals("label", lex.toArray(null)[0]);
+	}
+
+	public void test04() {
+		String[] array = { "meow", "berry", "rose", "bunny", "hide", "poe", "milk", "rose" };
+		assertEquals(7, lex.addAll(array, 0, array.length));
+		String[] s8 = new String[8];
+		s8[7] = "end";
+		assertSame(s8, lex.toArray(s8));
+		assertEquals("berry", s8[0]);
+		assertEquals("rose", s8[6]);
+		assertEquals("end", s8[7]);
+		// sorted input into an empty lexicon is built directly
+		ArenaLexicon other = new ArenaLexicon();
+		String[] sorted = { "a", "b", "c", "d", "e" };
+		assertEquals(4, other.addAll(sorted, 1, 5));
+		assertEquals("[b, c, d, e]", java.util.Arrays.toString(other.toArray(null)));
+		assertTrue(other.add("a"));
+		assertEquals("a", other.getMin());
+	}
+
+	/** Characters outside ASCII, including surrogates, sort as String.compareTo does. */
+	public void test05() {
+		String[] words = { "caf\u00e9", "cafe", "caf\u00e9s", "\u4e2d\u6587", "\uffff", "\ud83d\ude00",
+				"\u00e9", "z", "\u07ff", "\u0800", "caf\u4e2d" };
+		for (String s : words) assertTrue(lex.add(s));
+		ArrayList<String> expected = new ArrayList<>();
+		for (String s : words) expected.add(s);
+		expected.sort(null);
+		assertEquals(expected.toString(), java.util.Arrays.toString(lex.toArray(null)));
+		assertEquals("[caf\u00e9, caf\u00e9s]", consume("caf\u00e9"));
+		assertEquals("\uffff", lex.getNext("\ud83d\ude00"));
+		assertEquals("\ud83d\ude00", lex.getNext("\u4e2d\u6587"));
+		assertTrue(lex.contains("\ud83d\ude00"));
+		assertFalse(lex.contains("\ud83d"));
+	}
+
+	public void test06() {
+		Random r = new Random(351);
+		Lexicon tree = new Lexicon(true);
+		for (int i=0; i < 2000; ++i) {
+			String s = Integer.toString(r.nextInt(5000), 7 + r.nextInt(30));
+			assertEquals(tree.add(s), lex.add(s));
+		}
+		assertEquals(tree.size(), lex.size());
+		assertEquals(tree.getMin(), lex.getMin());
+		for (int i=0; i < 2000; ++i) {
+			String s = Integer.toString(r.nextInt(5000), 7 + r.nextInt(30));
+			assertEquals(tree.contains(s), lex.contains(s));
+			assertEquals(s, tree.getNext(s), lex.getNext(s));
+		}
+		for (String p : new String[] {"", "1", "2a", "10", "zz", "3"}) {
+			ArrayList<String> expected = new ArrayList<>();
+			tree.consumeAllWithPrefix(expected::add, p);
+			assertEquals(expected.toString(), consume(p));
+		}
+	}
+
+	/** Lookups share no state, so several threads may read at once. */
+	public void test07() throws InterruptedException {
+		for (int i=0; i < 1000; ++i) lex.add(Integer.toString(i * 2));
+		boolean[] failed = new boolean[1];
+		Thread[] threads = new Thread[4];
+		for (int t=0; t < threads.length; ++t) {
+			int offset = t;
+			threads[t] = new Thread(() -> {
+				for (int k=0; k < 20000; ++k) {
+					int i = (k + offset * 250) % 1000;
+					if (!lex.contains(Integer.toString(i * 2)) || lex.contains(Integer.toString(i * 2 + 1)))
+						failed[0] = true;
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread t : threads) t.join();
+		assertFalse(failed[0]);
+	}
+
+	private String consume(String prefix) {
+		ArrayList<String> list = new ArrayList<>();
+		lex.consumeAllWithPrefix(list::add, prefix);
+		return list.toString();
+	}
+}
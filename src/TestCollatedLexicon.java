@@ -0,0 +1,105 @@
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import edu.uwm.cs351.CollatedLexicon;
+
+
+public class TestCollatedLexicon extends TestCase {
+
+	CollatedLexicon lex;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		lex = new CollatedLexicon(Collator.getInstance(Locale.US));
+	}
+
+	public void test00() {
+		assertEquals(0, lex.size());
+		assertNull(lex.getMin());
+		assertFalse(lex.contains(""));
+		assertFalse(lex.contains(null));
+		assertNull(lex.getNext(""));
+		try {
+			new CollatedLexicon(null);
+			assertFalse("collator should not be null", true);
+		} catch (NullPointerException ex) {
+			assertTrue(true);
+		}
+	}
+
+	public void test01() {
+		for (String s : new String[] { "Zebra", "apple", "\u00e9clair", "eclair", "Apple", "banana", "zoo" })
+			assertTrue(lex.add(s));
+		assertFalse(lex.add("apple"));
+		assertEquals(7, lex.size());
+		assertEquals("[apple, Apple, banana, eclair, \u00e9clair, Zebra, zoo]", Arrays.toString(lex.toArray(null)));
+		assertEquals("apple", lex.getMin());
+		assertTrue(lex.contains("\u00e9clair"));
+		assertFalse(lex.contains("Eclair"));
+		assertEquals("Zebra", lex.getNext("yak"));
+		assertEquals("\u00e9clair", lex.getNext("eclair"));
+		assertNull(lex.getNext("zoo"));
+		try {
+			lex.getNext(null);
+			assertFalse("getNext should not accept null", true);
+		} catch (NullPointerException ex) {
+			assertTrue(true);
+		}
+	}
+
+	public void test02() {
+		// strings equal at primary strength are still distinct
+		Collator c = Collator.getInstance(Locale.US);
+		c.setStrength(Collator.PRIMARY);
+		lex = new CollatedLexicon(c);
+		c.setStrength(Collator.IDENTICAL);
+		assertEquals(Collator.PRIMARY, lex.getCollator().getStrength());
+		for (String s : new String[] { "resume", "R\u00e9sum\u00e9", "Resume", "r\u00e9sum\u00e9", "rest" })
+			assertTrue(lex.add(s));
+		assertFalse(lex.add("Resume"));
+		assertEquals(5, lex.size());
+		assertEquals("[rest, Resume, R\u00e9sum\u00e9, resume, r\u00e9sum\u00e9]", Arrays.toString(lex.toArray(null)));
+	}
+
+	public void test03() {
+		for (String s : new String[] { "cab", "Cabin", "cable", "c\u00e1bala", "cat", "Cab" })
+			lex.add(s);
+		ArrayList<String> list = new ArrayList<>();
+		lex.consumeAllWithPrefix(list::add, "cab");
+		assertEquals("[cab, cable]", list.toString());
+		list.clear();
+		lex.consumeAllWithPrefix(list::add, "C");
+		assertEquals("[Cab, Cabin]", list.toString());
+		list.clear();
+		lex.consumeAll(list::add);
+		assertEquals(Arrays.asList(lex.toArray(null)), list);
+	}
+
+	public void test04() {
+		Random r = new Random(351);
+		Collator c = Collator.getInstance(Locale.US);
+		lex = new CollatedLexicon(c);
+		ArrayList<String> expected = new ArrayList<>();
+		String letters = "aAbBeE\u00e9\u00c9\u00e8zZ";
+		for (int i=0; i < 2000; ++i) {
+			StringBuilder sb = new StringBuilder();
+			for (int j=r.nextInt(5); j >= 0; --j)
+				sb.append(letters.charAt(r.nextInt(letters.length())));
+			String s = sb.toString();
+			assertEquals(!expected.contains(s), lex.add(s));
+			if (!expected.contains(s)) expected.add(s);
+		}
+		expected.sort((a, b) -> {
+			int k = c.compare(a, b);
+			return k != 0 ? k : a.compareTo(b);
+		});
+		assertEquals(expected, Arrays.asList(lex.toArray(null)));
+		for (int i=0; i+1 < expected.size(); ++i)
+			assertEquals(expected.get(i+1), lex.getNext(expected.get(i)));
+	}
+}
@@ -0,0 +1,129 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+import edu.uwm.cs351.ConcurrentLexicon;
+
+
+public class TestConcurrentLexicon extends TestCase {
+
+	ConcurrentLexicon lex;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		lex = new ConcurrentLexicon();
+	}
+
+	public void test00() {
+		assertEquals(0, lex.size());
+		assertNull(lex.getMin());
+		assertFalse(lex.contains(null));
+		assertNull(lex.getNext(""));
+		assertEquals(0, lex.toArray(null).length);
+	}
+
+	public void test01() {
+		for (String s : new String[] {"but", "hex", "up", "down", "user"})
+			assertTrue(lex.add(s));
+		assertFalse(lex.add("up"));
+		assertEquals(5, lex.size());
+		assertEquals("but", lex.getMin());
+		assertEquals("but", lex.getNext("burn"));
+		assertEquals("up", lex.getNext("under"));
+		assertNull(lex.getNext("users"));
+		ArrayList<String> list = new ArrayList<>();
+		lex.consumeAllWithPrefix(list::add, "u");
+		assertEquals("[up, user]", list.toString());
+		String[] s6 = new String[6];
+		assertSame(s6, lex.toArray(s6));
+		assertEquals("user", s6[4]);
+		try {
+			lex.add(null);
+			assertFalse("add should not accept null", true);
+		} catch (NullPointerException ex) {
+			assertTrue(true);
+		}
+	}
+
+	private static final int WRITERS = 4;
+	private static final int READERS = 4;
+	private static final int PER_WRITER = 20000;
+
+	private static String word(int writer, int i) {
+		return (char)('a' + writer) + Integer.toString(100000 + i);
+	}
+
+	/**
+	 * Writers add disjoint sorted ranges while readers check that
+	 * everything a writer has published is visible and that traversals
+	 * stay sorted and within their prefix.
+	 */
+	public void testStress() throws InterruptedException {
+		AtomicInteger[] published = new AtomicInteger[WRITERS];
+		for (int w=0; w < WRITERS; ++w) published[w] = new AtomicInteger();
+		AtomicBoolean done = new AtomicBoolean();
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+
+		for (int w=0; w < WRITERS; ++w) {
+			final int writer = w;
+			threads.add(new Thread(() -> {
+				try {
+					start.await();
+					for (int i=0; i < PER_WRITER; ++i) {
+						if (!lex.add(word(writer, i))) throw new AssertionError("duplicate " + word(writer, i));
+						published[writer].set(i + 1);
+					}
+				} catch (Throwable t) { failure.compareAndSet(null, t); }
+			}));
+		}
+		for (int r=0; r < READERS; ++r) {
+			final int reader = r;
+			threads.add(new Thread(() -> {
+				try {
+					start.await();
+					int round = 0;
+					while (!done.get()) {
+						int writer = (reader + round++) % WRITERS;
+						int n = published[writer].get();
+						if (n == 0) continue;
+						String last = word(writer, n - 1);
+						if (!lex.contains(last)) throw new AssertionError("missing " + last);
+						if (n > 1 && !word(writer, 1).equals(lex.getNext(word(writer, 0))))
+							throw new AssertionError("wrong next of " + word(writer, 0));
+						String prefix = (char)('a' + writer) + "1000";
+						String[] prev = { null };
+						int[] count = { 0 };
+						lex.consumeAllWithPrefix(s -> {
+							if (!s.startsWith(prefix)) throw new AssertionError(s + " outside " + prefix);
+							if (prev[0] != null && prev[0].compareTo(s) >= 0) throw new AssertionError("out of order at " + s);
+							prev[0] = s;
+							++count[0];
+						}, prefix);
+						if (count[0] < Math.min(n, 100)) throw new AssertionError("only " + count[0] + " under " + prefix);
+					}
+				} catch (Throwable t) { failure.compareAndSet(null, t); }
+			}));
+		}
+
+		for (Thread t : threads) t.start();
+		start.countDown();
+		for (int w=0; w < WRITERS; ++w) threads.get(w).join();
+		done.set(true);
+		for (Thread t : threads) t.join();
+
+		if (failure.get() != null) throw new AssertionError(failure.get());
+		assertEquals(WRITERS * PER_WRITER, lex.size());
+		String[] all = lex.toArray(null);
+		assertEquals(WRITERS * PER_WRITER, all.length);
+		for (int i=1; i < all.length; ++i)
+			assertTrue(all[i-1].compareTo(all[i]) < 0);
+		assertEquals(word(0, 0), lex.getMin());
+	}
+}
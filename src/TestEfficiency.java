@@ -3,6 +3,8 @@ import junit.framework.TestCase;
 import java.util.ArrayList;
 import java.util.Random;
 import edu.uwm.cs351.Lexicon;
+import edu.uwm.cs351.LexiconCursor;
+import edu.uwm.cs351.TrieLexicon;
 
 
 public class TestEfficiency extends TestCase {
@@ -44,6 +46,13 @@ public class TestEfficiency extends TestCase {
 		performOps();
     }
     
+    public void testAddSorted() {
+    	lex = new Lexicon(true);
+    	for (int i=1; i < MAX; i++)
+    		lex.add(BASE_LENGTH + i + "");
+    	performOps();
+    }
+    
     public void testToArray() {
     	buildLargeTree();
     	String[] arr = lex.toArray(null);
@@ -81,6 +90,197 @@ public class TestEfficiency extends TestCase {
     	}
     }
     
+    public void testRankSelect() {
+    	buildLargeTree();
+    	for (int i=0; i < TESTS; ++i) {
+    		int r = 1 + random.nextInt(MAX - 1);
+    		assertEquals(BASE_LENGTH + r + "", lex.select(r - 1));
+    		assertEquals(r - 1, lex.rank(BASE_LENGTH + r + ""));
+    	}
+    	assertEquals(MAX - 1, lex.countWithPrefix("1"));
+    	assertEquals(1000, lex.countWithPrefix("10001"));
+    }
+    
+    public void testConsumeWithinDistance() {
+    	buildLargeTree();
+    	ArrayList<String> list = new ArrayList<>();
+    	for (int i=0; i < TESTS / 1000; ++i) {
+    		String word = BASE_LENGTH + 1 + random.nextInt(MAX - 1) + "";
+    		list.clear();
+    		lex.consumeWithinDistance(word, 1, list::add);
+    		assertTrue(list.contains(word));
+    		// 8 digits: at most 9 substitutions per digit, plus the word itself
+    		assertTrue(list.size() <= 8 * 9 + 1);
+    	}
+    }
+    
+    public void testConsumeMatching() {
+    	buildLargeTree();
+    	ArrayList<String> list = new ArrayList<>();
+    	for (int i=0; i < TESTS / 100; ++i) {
+    		String word = BASE_LENGTH + 1 + random.nextInt(MAX - 1) + "";
+    		String pattern = word.substring(0, 3) + "?" + word.substring(4, 6) + "*" + word.charAt(7);
+    		list.clear();
+    		lex.consumeMatching(pattern, list::add);
+    		assertTrue(list.contains(word));
+    		assertTrue(list.size() <= 100);
+    	}
+    }
+    
+    public void testConsumeMatchingVersusRegex() {
+    	buildLargeTree();
+    	String[] patterns = { "1001?3?7", "10[23]??55*", "1?00000*", "*99999" };
+    	for (String pattern : patterns) {
+    		ArrayList<String> list = new ArrayList<>();
+    		lex.consumeMatching(pattern, list::add);
+    		ArrayList<String> expected = new ArrayList<>();
+    		java.util.regex.Pattern regex = java.util.regex.Pattern.compile(pattern.replace("?", ".").replace("*", ".*"));
+    		lex.consumeAll(str -> { if (regex.matcher(str).matches()) expected.add(str); });
+    		assertEquals(pattern, expected, list);
+    	}
+    }
+    
+    public void testContainsAll() {
+    	buildLargeTree();
+    	String[] queries = new String[TESTS];
+    	for (int i=0; i < TESTS; ++i)
+    		queries[i] = BASE_LENGTH + random.nextInt(2 * MAX) + "";
+    	boolean[] found = new boolean[TESTS];
+    	String[] next = new String[TESTS];
+    	lex.containsAll(queries, found);
+    	lex.getNextAll(queries, next);
+    	for (int i=0; i < TESTS; ++i) {
+    		int q = Integer.parseInt(queries[i]) - BASE_LENGTH;
+    		assertEquals(q > 0 && q < MAX, found[i]);
+    		assertEquals(q + 1 < MAX ? BASE_LENGTH + Math.max(q + 1, 1) + "" : null, next[i]);
+    	}
+    }
+    
+    public void testRemove() {
+    	lex = new Lexicon(true);
+    	buildLargeTree();
+    	for (int i=1; i < MAX; i += 2)
+    		assertTrue(lex.remove(BASE_LENGTH + i + ""));
+    	assertEquals(MAX / 2 - 1, lex.size());
+    	assertTrue(lex.getHeight() <= 2 * POWER);
+    	for (int i=0; i < TESTS; ++i) {
+    		int r = 1 + random.nextInt(MAX - 1);
+    		assertEquals(r % 2 == 0, lex.contains(BASE_LENGTH + r + ""));
+    	}
+    	assertEquals(499999, lex.removeWithPrefix("10")); // the even numbers 10000002 to 10999998
+    }
+    
+    public void testSetAlgebra() {
+    	buildLargeTree();
+    	Lexicon odd = new Lexicon(true);
+    	String[] words = new String[MAX / 2];
+    	for (int i=1; i < MAX; i += 2)
+    		words[i / 2] = BASE_LENGTH + i + "";
+    	odd.addAll(words, 0, words.length);
+    	assertEquals(MAX - 1, Lexicon.union(lex, odd).size());
+    	assertEquals(MAX / 2, Lexicon.intersect(lex, odd).size());
+    	Lexicon even = Lexicon.difference(lex, odd);
+    	assertEquals(MAX / 2 - 1, even.size());
+    	assertEquals(BASE_LENGTH + 2 + "", even.getMin());
+    }
+    
+    public void testCursor() {
+    	buildLargeTree();
+    	LexiconCursor c = lex.cursor();
+    	for (int i=BASE_LENGTH + 1; i < BASE_LENGTH + MAX; i++)
+    		assertEquals(i+"", c.next());
+    	assertNull(c.next());
+    	for (int i=0; i < TESTS / 10; ++i) {
+    		int r = 1 + random.nextInt(MAX - 100);
+    		c.seek(BASE_LENGTH + r + "");
+    		for (int j=0; j < 100; ++j)
+    			assertEquals(BASE_LENGTH + r + j + "", c.next());
+    	}
+    }
+    
+    public void testDegenerate() {
+    	// sorted adds to an unbalanced lexicon make one long path
+    	for (int i=1; i < 30000; i++)
+    		lex.add(BASE_LENGTH + i + "");
+    	assertEquals(29999, lex.toArray(null).length);
+    	int[] count = { 0 };
+    	lex.consumeAll(s -> ++count[0]);
+    	assertEquals(29999, count[0]);
+    }
+    
+    public void testDegenerateBatch() {
+    	for (int i=1; i < 30000; i++)
+    		lex.add(BASE_LENGTH + i + "");
+    	String[] queries = new String[TESTS];
+    	for (int i=0; i < TESTS; ++i)
+    		queries[i] = BASE_LENGTH + random.nextInt(2 * 30000) + "";
+    	boolean[] found = new boolean[TESTS];
+    	String[] next = new String[TESTS];
+    	lex.containsAll(queries, found);
+    	lex.getNextAll(queries, next);
+    	for (int i=0; i < TESTS; ++i) {
+    		int q = Integer.parseInt(queries[i]) - BASE_LENGTH;
+    		assertEquals(q > 0 && q < 30000, found[i]);
+    		assertEquals(q < 29999 ? BASE_LENGTH + Math.max(1, q + 1) + "" : null, next[i]);
+    	}
+    }
+    
+    public void testDegenerateMatch() {
+    	for (int i=1; i < 30000; i++)
+    		lex.add(BASE_LENGTH + i + "");
+    	ArrayList<String> list = new ArrayList<>();
+    	lex.consumeMatching("1002999?", list::add);
+    	assertEquals(10, list.size());
+    	list.clear();
+    	lex.consumeWithinDistance(BASE_LENGTH + 29999 + "", 1, list::add);
+    	assertEquals(BASE_LENGTH + 9999 + "", list.get(0));
+    	assertEquals(BASE_LENGTH + 29999 + "", list.get(list.size() - 1));
+    }
+    
+    public void testConsumeWithLimit() {
+    	buildLargeTree();
+    	ArrayList<String> list = new ArrayList<>();
+    	for (int i=0; i < TESTS; ++i) {
+    		list.clear();
+    		assertEquals(20, lex.consumeAllWithPrefix(list::add, "1", 20));
+    	}
+    	for (int i=0; i < TESTS; ++i) {
+    		int r = 1 + random.nextInt(MAX - 100);
+    		String pre = BASE_LENGTH + r + "";
+    		pre = pre.substring(0, pre.length() - 1);
+    		assertEquals(1, lex.consumeWithPrefixWhile(s -> false, pre));
+    	}
+    }
+    
+    public void testConsumeAfter() {
+    	lex = new Lexicon(true);
+    	buildLargeTree();
+    	ArrayList<String> list = new ArrayList<>();
+    	for (int i=0; i < TESTS; ++i) {
+    		int r = 1 + random.nextInt(MAX - 100);
+    		list.clear();
+    		assertEquals(50, lex.consumeAfter(BASE_LENGTH + r + "", 50, list::add));
+    		assertEquals(BASE_LENGTH + r + 1 + "", list.get(0));
+    	}
+    }
+    
+    public void testTrieConsumeAllWithPrefix() {
+    	TrieLexicon trie = new TrieLexicon();
+    	for (int i=1; i < MAX; i++)
+    		trie.add(BASE_LENGTH + i + "");
+    	ArrayList<String> list = new ArrayList<>();
+    	trie.consumeAllWithPrefix(str -> list.add(str), "1");
+    	for (int i=BASE_LENGTH + 1; i < BASE_LENGTH + MAX; i++)
+    		assertEquals(i+"",list.get(i-BASE_LENGTH-1));
+    	
+    	for (int i=1; i < MAX; i++) {
+    		String pre = (BASE_LENGTH + i) + "";
+    		list.clear();
+    		trie.consumeAllWithPrefix(str -> list.add(str), pre);
+    		assertEquals(1,list.size());
+    	}
+    }
+    
     private void performOps() {
     	assertEquals(MAX-1, lex.size());
     	assertEquals(BASE_LENGTH + 1 + "", lex.getMin());
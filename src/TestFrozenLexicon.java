@@ -0,0 +1,116 @@
+import java.util.ArrayList;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import edu.uwm.cs351.FrozenLexicon;
+import edu.uwm.cs351.Lexicon;
+
+
+public class TestFrozenLexicon extends TestCase {
+
+	Lexicon lex;
+	FrozenLexicon frozen;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		lex = new Lexicon(true);
+	}
+
+	public void test00() {
+		frozen = lex.freeze();
+		assertEquals(0, frozen.size());
+		assertNull(frozen.getMin());
+		assertFalse(frozen.contains(""));
+		assertFalse(frozen.contains(null));
+		assertNull(frozen.getNext(""));
+		assertEquals(0, frozen.toArray(null).length);
+	}
+
+	public void test01() {
+		for (String s : new String[] {"but", "hex", "up", "down", "user"})
+			lex.add(s);
+		frozen = lex.freeze();
+		lex.add("zoo");
+		assertEquals(5, frozen.size());
+		assertFalse(frozen.contains("zoo"));
+		assertTrue(frozen.contains("hex"));
+		assertFalse(frozen.contains("he"));
+		assertEquals("but", frozen.getMin());
+		assertEquals("but", frozen.getNext("burn"));
+		assertEquals("down", frozen.getNext("button"));
+		assertEquals("up", frozen.getNext("under"));
+		assertNull(frozen.getNext("users"));
+		try {
+			frozen.getNext(null);
+			assertFalse("getNext should not accept null", true);
+		} catch (NullPointerException ex) {
+			assertTrue(true);
+		}
+	}
+
+	public void test02() {
+		for (String s : new String[] {"landlord", "landfill", "label", "lady", "last", "lake", "land",
+				"landing", "labor", "lamp", "lane", "large"})
+			lex.add(s);
+		frozen = lex.freeze();
+		assertEquals("[land, landfill, landing, landlord, lane]", consume("lan"));
+		assertEquals("[]", consume("landx"));
+		assertEquals(12, consume("").split(",").length);
+		try {
+			frozen.consumeAllWithPrefix(null, "");
+			assertFalse("consumeAllWithPrefix should not accept null consumer", true);
+		} catch (NullPointerException ex) {
+			assertTrue(true);
+		}
+	}
+
+	public void test03() {
+		// spans many blocks, with long shared prefixes
+		StringBuilder sb = new StringBuilder();
+		for (int i=0; i < 40000; ++i) sb.append('x');
+		String longPrefix = sb.toString();
+		for (int i=0; i < 1000; ++i) {
+			lex.add(10000 + i + "");
+			lex.add(longPrefix + i);
+		}
+		frozen = lex.freeze();
+		assertEquals(2000, frozen.size());
+		String[] expected = lex.toArray(null);
+		String[] actual = frozen.toArray(null);
+		for (int i=0; i < expected.length; ++i)
+			assertEquals(expected[i], actual[i]);
+		for (String s : expected) {
+			assertTrue(frozen.contains(s));
+			assertEquals(lex.getNext(s), frozen.getNext(s));
+		}
+		assertEquals(111, consume(longPrefix + "1").split(",").length);
+		assertTrue("front coding should share the long prefix", frozen.dataLength() < 1000 * longPrefix.length() / 10);
+	}
+
+	public void test04() {
+		Random r = new Random(351);
+		for (int i=0; i < 3000; ++i)
+			lex.add(Integer.toString(r.nextInt(10000), 36));
+		frozen = lex.freeze();
+		for (int i=0; i < 3000; ++i) {
+			String s = Integer.toString(r.nextInt(10000), 36);
+			assertEquals(lex.contains(s), frozen.contains(s));
+			assertEquals(lex.getNext(s), frozen.getNext(s));
+		}
+		for (String p : new String[] {"", "1", "a", "zz", "7q"}) {
+			ArrayList<String> list = new ArrayList<>();
+			lex.consumeAllWithPrefix(list::add, p);
+			assertEquals(list.toString(), consume(p));
+		}
+		Lexicon copy = frozen.thaw(false);
+		assertEquals(lex.size(), copy.size());
+		assertEquals(lex.getMin(), copy.getMin());
+	}
+
+	private String consume(String prefix) {
+		ArrayList<String> list = new ArrayList<>();
+		frozen.consumeAllWithPrefix(list::add, prefix);
+		return list.toString();
+	}
+}
@@ -1,6 +1,15 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 import edu.uwm.cs.junit.LockedTestCase;
 import edu.uwm.cs351.Lexicon;
+import edu.uwm.cs351.LexiconCursor;
+import edu.uwm.cs351.LexiconMetrics;
 
 
 public class TestLexicon extends LockedTestCase {
@@ -668,7 +677,936 @@ public class TestLexicon extends LockedTestCase {
 			assertTrue("wrong type of exception: " + ex, ex instanceof NullPointerException);
 		}
 	}
-
+	
+	
+	/** 
+	 * 5x: Tests for balanced lexicons
+	 * 
+	 * Dependencies: add, contains, getMin, getNext, toArray
+	 */
+	
+	public void test50() {
+		lex = new Lexicon(true);
+		assertTrue(lex.isBalanced());
+		assertFalse(new Lexicon().isBalanced());
+		assertEquals(0, lex.size());
+		assertNull(lex.getMin());
+		assertFalse(lex.contains("a"));
+	}
+	
+	public void test51() {
+		lex = new Lexicon(true);
+		for (int i=0; i < 100; ++i)
+			assertTrue(lex.add(1000 + i + ""));
+		assertFalse(lex.add("1050"));
+		assertEquals(100, lex.size());
+		assertEquals("1000", lex.getMin());
+		for (int i=0; i < 99; ++i)
+			assertEquals(1001 + i + "", lex.getNext(1000 + i + ""));
+		assertNull(lex.getNext("1099"));
+	}
+	
+	public void test52() {
+		lex = new Lexicon(true);
+		for (int i=99; i >= 0; --i)
+			lex.add(1000 + i + "");
+		set = lex.toArray(null);
+		assertEquals(100, set.length);
+		for (int i=0; i < 100; ++i)
+			assertEquals(1000 + i + "", set[i]);
+	}
+	
+	public void test53() {
+		lex = new Lexicon(true);
+		String[] words = { "landlord", "landfill", "label", "lady", "last", "lake", "land", 
+				"landing", "labor", "lamp", "lane", "large"};
+		for (String s : words)
+			lex.add(s);
+		ArrayList<String> list = new ArrayList<>();
+		lex.consumeAllWithPrefix(str -> list.add(str), "lan");
+		assertEquals("[land, landfill, landing, landlord, lane]", list.toString());
+		for (String s : words)
+			assertTrue(lex.contains(s));
+		assertFalse(lex.contains("lan"));
+	}
+	
+	/** 
+	 * 6x: Tests for spliterator/stream
+	 * 
+	 * Dependencies: add, addAll, toArray, consumeAllWithPrefix
+	 */
+	
+	public void test60() {
+		assertEquals(0, lex.stream().count());
+		assertEquals(0, lex.streamWithPrefix("a").count());
+		Spliterator<String> sp = lex.spliterator();
+		assertNull(sp.trySplit());
+		assertEquals(0, sp.estimateSize());
+		assertFalse(sp.tryAdvance(s -> fail("nothing to advance to")));
+	}
+	
+	public void test61() {
+		for (String s : new String[] { "landlord", "landfill", "label", "lady", "last", "lake", "land", 
+				"landing", "labor", "lamp", "lane", "large"})
+			lex.add(s);
+		assertEquals("[label, labor, lady, lake, lamp, land, landfill, landing, landlord, lane, large, last]",
+				lex.stream().collect(Collectors.toList()).toString());
+		assertEquals("[land, landfill, landing, landlord, lane]",
+				lex.streamWithPrefix("lan").collect(Collectors.toList()).toString());
+		assertEquals("[]", lex.streamWithPrefix("m").collect(Collectors.toList()).toString());
+		
+		Spliterator<String> sp = lex.spliterator();
+		assertTrue(sp.hasCharacteristics(Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.SIZED));
+		assertNull(sp.getComparator());
+		assertEquals(12, sp.getExactSizeIfKnown());
+		assertTrue(sp.tryAdvance(s -> assertEquals("label", s)));
+		assertEquals(11, sp.getExactSizeIfKnown());
+	}
+	
+	public void test62() {
+		String[] words = new String[5000];
+		for (int i=0; i < words.length; ++i)
+			words[i] = 10000 + i + "";
+		lex.addAll(words, 0, words.length);
+		
+		// splitting recursively must still cover every string once, in order
+		List<String> list = new ArrayList<>();
+		collectSplit(lex.spliterator(), list, 0);
+		assertEquals(words.length, list.size());
+		for (int i=0; i < words.length; ++i)
+			assertEquals(words[i], list.get(i));
+		
+		assertEquals(words.length, lex.stream().parallel().count());
+		assertEquals(lex.stream().filter(s -> s.endsWith("7")).count(),
+				lex.stream().parallel().filter(s -> s.endsWith("7")).count());
+		assertEquals(lex.streamWithPrefix("123").collect(Collectors.toList()),
+				lex.streamWithPrefix("123").parallel().collect(Collectors.toList()));
+		assertEquals(100, lex.streamWithPrefix("123").parallel().count());
+	}
+	
+	private void collectSplit(Spliterator<String> sp, List<String> list, int depth) {
+		Spliterator<String> first = depth < 8 ? sp.trySplit() : null;
+		if (first != null) collectSplit(first, list, depth + 1);
+		if (first != null || depth < 8) {
+			if (sp.tryAdvance(list::add)) collectSplit(sp, list, depth + 1);
+		}
+		else sp.forEachRemaining(list::add);
+	}
+	
+	/** 
+	 * 7x: Tests for rank/select/countRange/countWithPrefix
+	 * 
+	 * Dependencies: add, addAll, toArray
+	 */
+	
+	public void test70() {
+		assertEquals(0, lex.rank("a"));
+		assertEquals(0, lex.countRange("a", "z"));
+		assertEquals(0, lex.countWithPrefix(""));
+		try {
+			lex.select(0);
+			assertFalse("select should not accept index past end", true);
+		} catch (RuntimeException ex) {
+			assertTrue("wrong type of exception: " + ex, ex instanceof IndexOutOfBoundsException);
+		}
+		try {
+			lex.rank(null);
+			assertFalse("rank should not accept null", true);
+		} catch (RuntimeException ex) {
+			assertTrue("wrong type of exception: " + ex, ex instanceof NullPointerException);
+		}
+	}
+	
+	public void test71() {
+		for (String s : new String[] { "landlord", "landfill", "label", "lady", "last", "lake", "land", 
+				"landing", "labor", "lamp", "lane", "large"})
+			lex.add(s);
+		set = lex.toArray(null);
+		for (int i=0; i < set.length; ++i) {
+			assertEquals(set[i], lex.select(i));
+			assertEquals(i, lex.rank(set[i]));
+		}
+		assertEquals(0, lex.rank("a"));
+		assertEquals(5, lex.rank("lan"));
+		assertEquals(12, lex.rank("m"));
+		assertEquals(5, lex.countWithPrefix("lan"));
+		assertEquals(4, lex.countWithPrefix("land"));
+		assertEquals(0, lex.countWithPrefix("landx"));
+		assertEquals(12, lex.countWithPrefix("l"));
+		assertEquals(12, lex.countWithPrefix(""));
+		assertEquals(3, lex.countRange("lamp", "landing"));
+		assertEquals(0, lex.countRange("landing", "lamp"));
+		try {
+			lex.select(-1);
+			assertFalse("select should not accept negative index", true);
+		} catch (RuntimeException ex) {
+			assertTrue("wrong type of exception: " + ex, ex instanceof IndexOutOfBoundsException);
+		}
+	}
+	
+	public void test72() {
+		lex = new Lexicon(true);
+		lex.add("a\uffff");
+		lex.add("a\uffff\uffff");
+		lex.add("b");
+		lex.add("\uffff");
+		assertEquals(2, lex.countWithPrefix("a\uffff"));
+		assertEquals(1, lex.countWithPrefix("\uffff"));
+		for (int i=0; i < 300; ++i)
+			lex.add(1000 + i + "");
+		assertEquals(100, lex.countWithPrefix("10"));
+		assertEquals("1150", lex.select(150));
+		assertEquals(150, lex.rank("1150"));
+		assertEquals(151, lex.rank("1150x"));
+		assertEquals(100, lex.streamWithPrefix("11").count());
+		assertTrue(lex.spliterator().hasCharacteristics(Spliterator.SUBSIZED));
+		Spliterator<String> sp = lex.spliterator();
+		Spliterator<String> first = sp.trySplit();
+		assertEquals(304, first.getExactSizeIfKnown() + sp.getExactSizeIfKnown());
+	}
+	
+	/** 
+	 * 8x: Tests for weights and topK
+	 * 
+	 * Dependencies: add, contains, size
+	 */
+	
+	public void test80() {
+		assertEquals(0, lex.topK("", 10).length);
+		assertTrue(lex.add("apple", 5));
+		assertFalse(lex.add("apple", 7));
+		assertFalse(lex.add("apple"));
+		assertEquals(7, lex.getWeight("apple"));
+		assertEquals(0, lex.getWeight("pear"));
+		assertEquals(0, lex.getWeight(null));
+		assertEquals(1, lex.size());
+		lex.add("pear");
+		assertEquals(0, lex.getWeight("pear"));
+		assertEquals("[apple, pear]", Arrays.toString(lex.topK("", 10)));
+		assertEquals("[apple]", Arrays.toString(lex.topK("", 1)));
+		assertEquals(0, lex.topK("", 0).length);
+		try {
+			lex.topK("", -1);
+			assertFalse("topK should not accept negative k", true);
+		} catch (RuntimeException ex) {
+			assertTrue("wrong type of exception: " + ex, ex instanceof IllegalArgumentException);
+		}
+		try {
+			lex.topK(null, 1);
+			assertFalse("topK should not accept null prefix", true);
+		} catch (RuntimeException ex) {
+			assertTrue("wrong type of exception: " + ex, ex instanceof NullPointerException);
+		}
+	}
+	
+	public void test81() {
+		String[] words = { "landlord", "landfill", "label", "lady", "last", "lake", "land", 
+				"landing", "labor", "lamp", "lane", "large"};
+		long[] weights = { 3, 9, 100, 4, 50, 7, 9, 1, 2, 8, 20, 30 };
+		for (int i=0; i < words.length; ++i)
+			lex.add(words[i], weights[i]);
+		assertEquals("[lane, land, landfill]", Arrays.toString(lex.topK("lan", 3)));
+		assertEquals("[lane, land, landfill, landlord, landing]", Arrays.toString(lex.topK("lan", 10)));
+		assertEquals("[label, last, large]", Arrays.toString(lex.topK("", 3)));
+		assertEquals("[]", Arrays.toString(lex.topK("m", 3)));
+		lex.add("landing", 1000);
+		assertEquals("[landing, lane]", Arrays.toString(lex.topK("lan", 2)));
+	}
+	
+	public void test82() {
+		lex = new Lexicon(true);
+		String[] words = new String[2000];
+		for (int i=0; i < words.length; ++i)
+			words[i] = 10000 + i + "";
+		lex.addAll(words, 0, words.length);
+		// without weights, ties come in order
+		assertEquals("[10000, 10001, 10002]", Arrays.toString(lex.topK("", 3)));
+		assertEquals("[10500, 10501]", Arrays.toString(lex.topK("105", 2)));
+		for (int i=0; i < words.length; ++i)
+			lex.add(words[i], i % 97);
+		set = lex.topK("11", 5);
+		assertEquals("[11066, 11163, 11260, 11357, 11454]", Arrays.toString(set));
+		set = lex.topK("", 25);
+		for (int i=1; i < set.length; ++i)
+			assertTrue(lex.getWeight(set[i-1]) >= lex.getWeight(set[i]));
+		assertEquals(95, lex.getWeight(set[24]));
+	}
+	
+	/** 
+	 * 9x: Tests for consumeWithinDistance
+	 * 
+	 * Dependencies: add, addAll, consumeAll
+	 */
+	
+	public void test90() {
+		ArrayList<String> list = new ArrayList<>();
+		lex.consumeWithinDistance("cat", 1, list::add);
+		assertEquals("[]", list.toString());
+		try {
+			lex.consumeWithinDistance(null, 1, list::add);
+			assertFalse("consumeWithinDistance should not accept null word", true);
+		} catch (RuntimeException ex) {
+			assertTrue("wrong type of exception: " + ex, ex instanceof NullPointerException);
+		}
+		try {
+			lex.consumeWithinDistance("cat", -1, list::add);
+			assertFalse("consumeWithinDistance should not accept negative distance", true);
+		} catch (RuntimeException ex) {
+			assertTrue("wrong type of exception: " + ex, ex instanceof IllegalArgumentException);
+		}
+	}
+	
+	public void test91() {
+		for (String s : new String[] { "cat", "cart", "act", "at", "cut", "coat", "dog", "cats", "scat", "c", "" })
+			lex.add(s);
+		ArrayList<String> list = new ArrayList<>();
+		lex.consumeWithinDistance("cat", 0, list::add);
+		assertEquals("[cat]", list.toString());
+		list.clear();
+		lex.consumeWithinDistance("cat", 1, list::add);
+		assertEquals("[at, cart, cat, cats, coat, cut, scat]", list.toString());
+		list.clear();
+		lex.consumeWithinDistance("cat", 2, list::add);
+		assertEquals("[act, at, c, cart, cat, cats, coat, cut, scat]", list.toString());
+		list.clear();
+		lex.consumeWithinDistance("", 1, list::add);
+		assertEquals("[, c]", list.toString());
+	}
+	
+	public void test92() {
+		lex = new Lexicon(true);
+		Random r = new Random(351);
+		for (int i=0; i < 2000; ++i)
+			lex.add(Integer.toString(r.nextInt(100000), 5 + r.nextInt(8)));
+		for (String word : new String[] { "1234", "3300", "77", "10101", "" }) {
+			for (int k=0; k <= 2; ++k) {
+				ArrayList<String> expected = new ArrayList<>();
+				final int max = k;
+				lex.consumeAll(s -> { if (distance(s, word) <= max) expected.add(s); });
+				ArrayList<String> list = new ArrayList<>();
+				lex.consumeWithinDistance(word, k, list::add);
+				assertEquals(word + " within " + k, expected, list);
+			}
+		}
+	}
+	
+	public void test93() {
+		// an unbalanced tree built from sorted strings is a single long path
+		for (int i=0; i < 2000; ++i)
+			lex.add(10000 + i + "");
+		ArrayList<String> list = new ArrayList<>();
+		lex.consumeWithinDistance("11999", 1, list::add);
+		assertEquals(29, list.size()); // itself, 10999, and nine substitutions in each of the last three digits
+		assertEquals("10999", list.get(0));
+		assertEquals("11999", list.get(28));
+	}
+	
+	private static int distance(String a, String b) {
+		int[][] d = new int[a.length() + 1][b.length() + 1];
+		for (int i=0; i <= a.length(); ++i) d[i][0] = i;
+		for (int j=0; j <= b.length(); ++j) d[0][j] = j;
+		for (int i=1; i <= a.length(); ++i)
+			for (int j=1; j <= b.length(); ++j)
+				d[i][j] = Math.min(Math.min(d[i-1][j] + 1, d[i][j-1] + 1),
+						d[i-1][j-1] + (a.charAt(i-1) == b.charAt(j-1) ? 0 : 1));
+		return d[a.length()][b.length()];
+	}
+	
+	/** 
+	 * 10x: Tests for consumeMatching
+	 * 
+	 * Dependencies: add, addAll, consumeAll
+	 */
+	
+	public void test100() {
+		ArrayList<String> list = new ArrayList<>();
+		lex.consumeMatching("c?t*", list::add);
+		assertEquals("[]", list.toString());
+		try {
+			lex.consumeMatching(null, list::add);
+			assertFalse("consumeMatching should not accept null pattern", true);
+		} catch (RuntimeException ex) {
+			assertTrue("wrong type of exception: " + ex, ex instanceof NullPointerException);
+		}
+		for (String bad : new String[] { "[ab", "ab\\", "[z-a]" }) {
+			try {
+				lex.consumeMatching(bad, list::add);
+				assertFalse("consumeMatching should not accept " + bad, true);
+			} catch (RuntimeException ex) {
+				assertTrue("wrong type of exception: " + ex, ex instanceof IllegalArgumentException);
+			}
+		}
+	}
+	
+	public void test101() {
+		for (String s : new String[] { "cat", "cart", "act", "at", "cut", "coat", "cot", "cats", "scat", "c", "",
+				"able", "axle", "bale", "babe", "a*b", "a?b", "aab" })
+			lex.add(s);
+		assertEquals("[cat, cot, cut]", match("c?t"));
+		assertEquals("[cart, cat, cats, coat, cot, cut]", match("c?*t*"));
+		assertEquals("[c, cart, cat, cats, coat, cot, cut]", match("c*"));
+		assertEquals("[able, axle, babe, bale]", match("[ab]??e"));
+		assertEquals("[able, axle]", match("[!b]??e"));
+		assertEquals("[babe, bale]", match("[^a-a]??e"));
+		assertEquals("[cat, cot]", match("c[ao]t"));
+		assertEquals("[c]", match("[c]"));
+		assertEquals("[]", match("?????"));
+		assertEquals(lex.size(), match("*").split(",").length);
+		assertEquals("[a*b]", match("a\\*b"));
+		assertEquals("[a*b, a?b, aab]", match("a?b"));
+		assertEquals("[a?b]", match("a\\?b"));
+		assertEquals("[at]", match("at"));
+		assertEquals("[at, cat, cats, coat, scat]", match("*at*"));
+	}
+	
+	public void test102() {
+		lex = new Lexicon(true);
+		Random r = new Random(351);
+		for (int i=0; i < 3000; ++i)
+			lex.add(Integer.toString(r.nextInt(100000), 5 + r.nextInt(8)));
+		for (String pattern : new String[] { "1?3*", "*0", "[12]??", "2[0-3]*1", "*", "??", "3[!0]*[!1]", "1**2" }) {
+			java.util.regex.Pattern regex = java.util.regex.Pattern.compile(
+					pattern.replace("?", ".").replace("*", ".*").replace("[!", "[^"));
+			ArrayList<String> expected = new ArrayList<>();
+			lex.consumeAll(s -> { if (regex.matcher(s).matches()) expected.add(s); });
+			assertEquals(pattern, expected.toString(), match(pattern));
+		}
+	}
+	
+	public void test103() {
+		// an unbalanced tree built from sorted strings is a single long path
+		for (int i=0; i < 2000; ++i)
+			lex.add(10000 + i + "");
+		assertEquals("[10999, 11999]", match("1?999"));
+		assertEquals("[11990, 11991, 11992, 11993, 11994, 11995, 11996, 11997, 11998, 11999]", match("1199*"));
+	}
+	
+	private String match(String pattern) {
+		ArrayList<String> list = new ArrayList<>();
+		lex.consumeMatching(pattern, list::add);
+		return list.toString();
+	}
+	
+	/** 
+	 * 11x: Tests for containsAll and getNextAll
+	 * 
+	 * Dependencies: add, contains, getNext
+	 */
+	
+	public void test110() {
+		boolean[] found = new boolean[1];
+		String[] next = new String[1];
+		lex.containsAll(new String[] { "a" }, found);
+		assertFalse(found[0]);
+		lex.getNextAll(new String[] { "a" }, next);
+		assertNull(next[0]);
+		try {
+			lex.containsAll(new String[] { "a", "b" }, found);
+			assertFalse("containsAll should not accept a short answer array", true);
+		} catch (RuntimeException ex) {
+			assertTrue("wrong type of exception: " + ex, ex instanceof IllegalArgumentException);
+		}
+		try {
+			lex.getNextAll(new String[] { "a", null }, new String[2]);
+			assertFalse("getNextAll should not accept null query", true);
+		} catch (RuntimeException ex) {
+			assertTrue("wrong type of exception: " + ex, ex instanceof NullPointerException);
+		}
+		try {
+			lex.containsAll(null, found);
+			assertFalse("containsAll should not accept null", true);
+		} catch (RuntimeException ex) {
+			assertTrue("wrong type of exception: " + ex, ex instanceof NullPointerException);
+		}
+	}
+	
+	public void test111() {
+		for (String s : new String[] { "but", "hex", "up", "down", "user" })
+			lex.add(s);
+		String[] queries = { "up", "burn", null, "users", "but", "button", "hex", "", "up" };
+		boolean[] found = new boolean[queries.length + 1];
+		found[queries.length] = true;
+		lex.containsAll(queries, found);
+		assertEquals("[true, false, false, false, true, false, true, false, true, true]", Arrays.toString(found));
+		String[] nonNull = { "up", "burn", "users", "but", "button", "hex", "", "up" };
+		String[] next = new String[nonNull.length];
+		lex.getNextAll(nonNull, next);
+		assertEquals("[user, but, null, down, down, up, but, user]", Arrays.toString(next));
+	}
+	
+	public void test112() {
+		Random r = new Random(351);
+		for (int i=0; i < 2000; ++i)
+			lex.add(Integer.toString(r.nextInt(5000), 7 + r.nextInt(30)));
+		for (boolean sorted : new boolean[] { false, true }) {
+			String[] queries = new String[3000];
+			for (int i=0; i < queries.length; ++i)
+				queries[i] = Integer.toString(r.nextInt(5000), 7 + r.nextInt(30));
+			if (sorted) Arrays.sort(queries);
+			boolean[] found = new boolean[queries.length];
+			String[] next = new String[queries.length];
+			lex.containsAll(queries, found);
+			lex.getNextAll(queries, next);
+			for (int i=0; i < queries.length; ++i) {
+				assertEquals(queries[i], lex.contains(queries[i]), found[i]);
+				assertEquals(queries[i], lex.getNext(queries[i]), next[i]);
+			}
+		}
+	}
+	
+	public void test113() {
+		// an unbalanced tree built from sorted strings is a single long path
+		for (int i=0; i < 2000; ++i)
+			lex.add(10000 + i * 2 + "");
+		String[] queries = { "0", "10000", "10001", "11999", "13998", "13999", "2" };
+		boolean[] found = new boolean[queries.length];
+		String[] next = new String[queries.length];
+		lex.containsAll(queries, found);
+		lex.getNextAll(queries, next);
+		assertEquals("[false, true, false, false, true, false, false]", Arrays.toString(found));
+		assertEquals("[10000, 10002, 10002, 12000, null, null, null]", Arrays.toString(next));
+	}
+	
+	/** 
+	 * 12x: Tests for getHeight, getDepthCounts and metrics
+	 * 
+	 * Dependencies: add, contains
+	 */
+	
+	public void test120() {
+		assertEquals(0, lex.getHeight());
+		assertEquals(0, lex.getDepthCounts().length);
+		for (String s : new String[] { "m", "f", "t", "a", "b", "c" })
+			lex.add(s);
+		assertEquals(5, lex.getHeight());
+		assertEquals("[1, 2, 1, 1, 1]", Arrays.toString(lex.getDepthCounts()));
+	}
+	
+	public void test121() {
+		lex = new Lexicon(true);
+		for (int i=0; i < 1000; ++i)
+			lex.add(1000 + i + "");
+		assertTrue(lex.getHeight() <= 14);
+		int[] depths = lex.getDepthCounts();
+		assertEquals(lex.getHeight(), depths.length);
+		int total = 0;
+		for (int d=0; d < depths.length; ++d) {
+			assertTrue(depths[d] <= 1 << d);
+			total += depths[d];
+		}
+		assertEquals(1000, total);
+	}
+	
+	/**
+	 * Operations only record metrics when the JVM runs with -Dlexicon.metrics=true;
+	 * otherwise this checks that nothing is recorded.  The counters themselves
+	 * are tested directly in TestLexiconMetrics.
+	 */
+	public void test122() {
+		lex.add("cat");
+		lex.add("cow");
+		lex.add("dog");
+		LexiconMetrics.Snapshot before = LexiconMetrics.snapshot();
+		lex.contains("cat");
+		lex.contains("cod");
+		lex.getNext("a");
+		lex.consumeAllWithPrefix(str -> {}, "c");
+		LexiconMetrics.Snapshot after = LexiconMetrics.snapshot();
+		long prefixResults = after.getResults(LexiconMetrics.Op.CONSUME_WITH_PREFIX)
+				- before.getResults(LexiconMetrics.Op.CONSUME_WITH_PREFIX);
+		long calls = after.getCalls(LexiconMetrics.Op.CONTAINS) - before.getCalls(LexiconMetrics.Op.CONTAINS);
+		long found = after.getResults(LexiconMetrics.Op.CONTAINS) - before.getResults(LexiconMetrics.Op.CONTAINS);
+		long nexts = after.getCalls(LexiconMetrics.Op.GET_NEXT) - before.getCalls(LexiconMetrics.Op.GET_NEXT);
+		if (LexiconMetrics.ENABLED) {
+			assertEquals(2, calls);
+			assertEquals(1, found);
+			assertEquals(1, nexts);
+			assertEquals(2, prefixResults);
+			assertTrue(after.getLatencyPercentile(LexiconMetrics.Op.CONTAINS, 1.0) > 0);
+		} else {
+			assertEquals(0, calls);
+			assertEquals(0, nexts);
+			assertEquals(0, prefixResults);
+		}
+	}
+	
+	/** 
+	 * 13x: Tests for remove, removeAll and removeWithPrefix
+	 * 
+	 * Dependencies: add, addAll, contains, getWeight, topK
+	 */
+	
+	public void test130() {
+		assertFalse(lex.remove("a"));
+		assertFalse(lex.remove(null));
+		assertEquals(0, lex.removeAll(new String[] { "a", null }, 0, 2));
+		assertEquals(0, lex.removeWithPrefix(""));
+		try {
+			lex.removeAll(null, 0, 0);
+			assertFalse("removeAll should not accept null array", true);
+		} catch (RuntimeException ex) {
+			assertTrue("wrong type of exception: " + ex, ex instanceof NullPointerException);
+		}
+		try {
+			lex.removeWithPrefix(null);
+			assertFalse("removeWithPrefix should not accept null", true);
+		} catch (RuntimeException ex) {
+			assertTrue("wrong type of exception: " + ex, ex instanceof NullPointerException);
+		}
+	}
+	
+	public void test131() {
+		for (String s : new String[] { "m", "f", "t", "a", "h", "p", "z", "g" })
+			lex.add(s);
+		assertTrue(lex.remove("a")); // leaf
+		assertTrue(lex.remove("h")); // one child
+		assertTrue(lex.remove("m")); // two children, at the root
+		assertFalse(lex.remove("m"));
+		test(lex, "after removes", "f", "g", "p", "t", "z");
+		assertTrue(lex.add("m"));
+		test(lex, "after re-adding", "f", "g", "m", "p", "t", "z");
+		assertEquals("p", lex.getNext("m"));
+		assertEquals(2, lex.rank("m"));
+	}
+	
+	public void test132() {
+		for (String s : new String[] { "landlord", "landfill", "label", "lady", "last", "lake", "land",
+				"landing", "labor", "lamp", "lane", "large" })
+			lex.add(s);
+		assertEquals(4, lex.removeWithPrefix("land"));
+		assertEquals(0, lex.removeWithPrefix("land"));
+		test(lex, "after prune", "label", "labor", "lady", "lake", "lamp", "lane", "large", "last");
+		assertEquals(3, lex.removeAll(new String[] { "lake", "zoo", "lady", "lake", "large" }, 0, 5));
+		test(lex, "after removeAll", "label", "labor", "lamp", "lane", "last");
+		assertEquals(5, lex.removeWithPrefix(""));
+		assertEquals(0, lex.size());
+		assertNull(lex.getMin());
+	}
+	
+	public void test133() {
+		for (boolean balanced : new boolean[] { false, true }) {
+			lex = new Lexicon(balanced);
+			TreeSet<String> expected = new TreeSet<>();
+			Random r = new Random(351);
+			for (int i=0; i < 3000; ++i) {
+				String s = Integer.toString(r.nextInt(2000), 36);
+				if (r.nextInt(3) == 0) assertEquals(s, expected.remove(s), lex.remove(s));
+				else assertEquals(s, expected.add(s), lex.add(s, s.length()));
+			}
+			String[] doomed = new String[400];
+			for (int i=0; i < doomed.length; ++i)
+				doomed[i] = Integer.toString(r.nextInt(2000), 36);
+			int count = 0;
+			for (String s : doomed)
+				if (expected.remove(s)) ++count;
+			assertEquals(count, lex.removeAll(doomed, 0, doomed.length));
+			assertEquals(expected.size(), lex.size());
+			assertEquals(new ArrayList<>(expected), Arrays.asList(lex.toArray(null)));
+			for (String s : expected)
+				assertEquals(s.length(), lex.getWeight(s));
+			assertEquals(3, lex.getWeight(lex.topK("", 1)[0]));
+		}
+	}
+	
+	/** 
+	 * 14x: Tests for union, intersect and difference
+	 * 
+	 * Dependencies: add, getWeight, toArray
+	 */
+	
+	public void test140() {
+		Lexicon other = new Lexicon();
+		test(Lexicon.union(lex, other), "union of empties");
+		test(Lexicon.intersect(lex, other), "intersection of empties");
+		test(Lexicon.difference(lex, other), "difference of empties");
+		try {
+			Lexicon.union(lex, null);
+			assertFalse("union should not accept null", true);
+		} catch (RuntimeException ex) {
+			assertTrue("wrong type of exception: " + ex, ex instanceof NullPointerException);
+		}
+	}
+	
+	public void test141() {
+		Lexicon other = new Lexicon(true);
+		for (String s : new String[] { "but", "hex", "up", "down" })
+			lex.add(s, s.length());
+		for (String s : new String[] { "up", "user", "but", "apple" })
+			other.add(s, 10);
+		Lexicon u = Lexicon.union(lex, other);
+		test(u, "union", "apple", "but", "down", "hex", "up", "user");
+		assertFalse(u.isBalanced());
+		assertEquals(3, u.getWeight("but"));
+		assertEquals(10, u.getWeight("user"));
+		test(Lexicon.intersect(lex, other), "intersection", "but", "up");
+		test(Lexicon.difference(lex, other), "difference", "down", "hex");
+		test(Lexicon.difference(other, lex), "other difference", "apple", "user");
+		assertTrue(Lexicon.intersect(other, lex).isBalanced());
+		assertEquals(10, Lexicon.intersect(other, lex).getWeight("up"));
+		test(lex, "unchanged", "but", "down", "hex", "up");
+		u.add("zoo");
+		assertFalse(lex.contains("zoo"));
+		test(Lexicon.union(lex, lex), "union with itself", "but", "down", "hex", "up");
+	}
+	
+	public void test142() {
+		Random r = new Random(351);
+		Lexicon other = new Lexicon(true);
+		TreeSet<String> x = new TreeSet<>(), y = new TreeSet<>();
+		for (int i=0; i < 2000; ++i) {
+			String s = Integer.toString(r.nextInt(3000), 36);
+			lex.add(s);
+			x.add(s);
+			s = Integer.toString(r.nextInt(3000), 36);
+			other.add(s);
+			y.add(s);
+		}
+		TreeSet<String> expected = new TreeSet<>(x);
+		expected.addAll(y);
+		assertEquals(new ArrayList<>(expected), Arrays.asList(Lexicon.union(lex, other).toArray(null)));
+		expected = new TreeSet<>(x);
+		expected.retainAll(y);
+		assertEquals(new ArrayList<>(expected), Arrays.asList(Lexicon.intersect(lex, other).toArray(null)));
+		expected = new TreeSet<>(x);
+		expected.removeAll(y);
+		assertEquals(new ArrayList<>(expected), Arrays.asList(Lexicon.difference(lex, other).toArray(null)));
+	}
+	
+	/** 
+	 * 15x: Tests for cursors
+	 * 
+	 * Dependencies: add, remove, toArray
+	 */
+	
+	public void test150() {
+		LexiconCursor c = lex.cursor();
+		assertNull(c.next());
+		assertNull(c.prev());
+		c.seek("anything");
+		assertNull(c.next());
+		try {
+			c.seek(null);
+			assertFalse("seek should not accept null", true);
+		} catch (RuntimeException ex) {
+			assertTrue("wrong type of exception: " + ex, ex instanceof NullPointerException);
+		}
+	}
+	
+	public void test151() {
+		for (String s : new String[] { "but", "hex", "up", "down", "user", "apple" })
+			lex.add(s);
+		LexiconCursor c = lex.cursor();
+		assertNull(c.prev());
+		assertEquals("apple", c.next());
+		assertEquals("but", c.next());
+		assertEquals("but", c.prev());
+		assertEquals("apple", c.prev());
+		assertNull(c.prev());
+		assertEquals("apple", c.next());
+		c.seek("e");
+		assertEquals("hex", c.next());
+		assertEquals("up", c.next());
+		assertEquals("user", c.next());
+		assertNull(c.next());
+		assertEquals("user", c.prev());
+		c.seek("up");
+		assertEquals("hex", c.prev());
+		c.seek("zebra");
+		assertNull(c.next());
+		assertEquals("user", c.prev());
+		
+		lex.add("cat");
+		try {
+			c.next();
+			assertFalse("cursor should notice the lexicon changed", true);
+		} catch (RuntimeException ex) {
+			assertTrue("wrong type of exception: " + ex, ex instanceof ConcurrentModificationException);
+		}
+		c.seek("c");
+		assertEquals("cat", c.next());
+		lex.add("cat");
+		lex.add("cat", 10);
+		assertEquals("down", c.next());
+		lex.remove("nothing");
+		assertEquals("hex", c.next());
+		lex.remove("cat");
+		try {
+			c.prev();
+			assertFalse("cursor should notice the lexicon changed", true);
+		} catch (RuntimeException ex) {
+			assertTrue("wrong type of exception: " + ex, ex instanceof ConcurrentModificationException);
+		}
+	}
+	
+	public void test152() {
+		Random r = new Random(351);
+		for (int i=0; i < 2000; ++i)
+			lex.add(Integer.toString(r.nextInt(5000), 36));
+		String[] all = lex.toArray(null);
+		LexiconCursor c = lex.cursor();
+		for (String s : all)
+			assertEquals(s, c.next());
+		assertNull(c.next());
+		for (int i=all.length-1; i >= 0; --i)
+			assertEquals(all[i], c.prev());
+		assertNull(c.prev());
+		for (int i=0; i < 200; ++i) {
+			String s = Integer.toString(r.nextInt(5000), 36);
+			c.seek(s);
+			int k = Arrays.binarySearch(all, s);
+			if (k < 0) k = -k - 1;
+			for (int j=0; j < 5; ++j)
+				assertEquals(k+j < all.length ? all[k+j] : null, c.next());
+			c.seek(s);
+			for (int j=1; j <= 5; ++j)
+				assertEquals(k-j >= 0 ? all[k-j] : null, c.prev());
+		}
+	}
+	
+	/** 
+	 * 16x: Tests for consumeAllWithPrefix with a limit and consumeWithPrefixWhile
+	 * 
+	 * Dependencies: add, consumeAllWithPrefix
+	 */
+	
+	public void test160() {
+		List<String> list = new ArrayList<>();
+		assertEquals(0, lex.consumeAllWithPrefix(list::add, "", 10));
+		assertEquals(0, lex.consumeWithPrefixWhile(s -> true, ""));
+		try {
+			lex.consumeAllWithPrefix(list::add, "", -1);
+			assertFalse("negative limit should not be accepted", true);
+		} catch (RuntimeException ex) {
+			assertTrue("wrong type of exception: " + ex, ex instanceof IllegalArgumentException);
+		}
+		try {
+			lex.consumeWithPrefixWhile(null, "");
+			assertFalse("null action should not be accepted", true);
+		} catch (RuntimeException ex) {
+			assertTrue("wrong type of exception: " + ex, ex instanceof NullPointerException);
+		}
+		try {
+			lex.consumeAllWithPrefix(list::add, null, 0);
+			assertFalse("null prefix should not be accepted", true);
+		} catch (RuntimeException ex) {
+			assertTrue("wrong type of exception: " + ex, ex instanceof NullPointerException);
+		}
+	}
+	
+	public void test161() {
+		for (String s : new String[] {"landlord", "landfill", "label", "lady", "last", "lake", "land",
+				"landing", "labor", "lamp", "lane", "large"})
+			lex.add(s);
+		List<String> list = new ArrayList<>();
+		assertEquals(2, lex.consumeAllWithPrefix(list::add, "lan", 2));
+		assertEquals("[land, landfill]", list.toString());
+		list.clear();
+		assertEquals(5, lex.consumeAllWithPrefix(list::add, "lan", 10));
+		assertEquals("[land, landfill, landing, landlord, lane]", list.toString());
+		list.clear();
+		assertEquals(0, lex.consumeAllWithPrefix(list::add, "lan", 0));
+		assertEquals(0, lex.consumeAllWithPrefix(list::add, "lx", 3));
+		assertEquals("[]", list.toString());
+		assertEquals(4, lex.consumeWithPrefixWhile(s -> { list.add(s); return !s.equals("lake"); }, "la"));
+		assertEquals("[label, labor, lady, lake]", list.toString());
+		list.clear();
+		assertEquals(12, lex.consumeWithPrefixWhile(s -> list.add(s), ""));
+		assertEquals(12, list.size());
+	}
+	
+	public void test162() {
+		// an unbalanced tree built from sorted strings is a single long path
+		for (int i=0; i < 2000; ++i)
+			lex.add(10000 + i + "");
+		List<String> list = new ArrayList<>();
+		assertEquals(20, lex.consumeAllWithPrefix(list::add, "11", 20));
+		assertEquals("11000", list.get(0));
+		assertEquals("11019", list.get(19));
+		list.clear();
+		lex.consumeAllWithPrefix(list::add, "1");
+		assertEquals(Arrays.asList(lex.toArray(null)), list);
+		assertEquals("11999", lex.toArray(null)[1999]);
+	}
+	
+	/** 
+	 * 17x: Tests for consumeRange and consumeAfter
+	 * 
+	 * Dependencies: add, toArray
+	 */
+	
+	public void test170() {
+		List<String> list = new ArrayList<>();
+		assertEquals(0, lex.consumeRange("", null, 10, list::add));
+		assertEquals(0, lex.consumeAfter("", 10, list::add));
+		try {
+			lex.consumeRange(null, "z", 10, list::add);
+			assertFalse("null start should not be accepted", true);
+		} catch (RuntimeException ex) {
+			assertTrue("wrong type of exception: " + ex, ex instanceof NullPointerException);
+		}
+		try {
+			lex.consumeAfter(null, 10, list::add);
+			assertFalse("null should not be accepted", true);
+		} catch (RuntimeException ex) {
+			assertTrue("wrong type of exception: " + ex, ex instanceof NullPointerException);
+		}
+		try {
+			lex.consumeAfter("", -1, list::add);
+			assertFalse("negative limit should not be accepted", true);
+		} catch (RuntimeException ex) {
+			assertTrue("wrong type of exception: " + ex, ex instanceof IllegalArgumentException);
+		}
+		try {
+			lex.consumeRange("", null, 1, null);
+			assertFalse("null consumer should not be accepted", true);
+		} catch (RuntimeException ex) {
+			assertTrue("wrong type of exception: " + ex, ex instanceof NullPointerException);
+		}
+	}
+	
+	public void test171() {
+		for (String s : new String[] { "but", "hex", "up", "down", "user", "apple" })
+			lex.add(s);
+		List<String> list = new ArrayList<>();
+		assertEquals(3, lex.consumeRange("but", "up", 10, list::add));
+		assertEquals("[but, down, hex]", list.toString());
+		list.clear();
+		assertEquals(2, lex.consumeRange("bus", null, 2, list::add));
+		assertEquals("[but, down]", list.toString());
+		list.clear();
+		assertEquals(0, lex.consumeRange("up", "up", 10, list::add));
+		assertEquals(0, lex.consumeRange("v", "a", 10, list::add));
+		assertEquals(0, lex.consumeRange("", null, 0, list::add));
+		assertEquals(2, lex.consumeAfter("hex", 2, list::add));
+		assertEquals("[up, user]", list.toString());
+		list.clear();
+		assertEquals(1, lex.consumeAfter("up", 5, list::add));
+		assertEquals("[user]", list.toString());
+		assertEquals(0, lex.consumeAfter("user", 5, list::add));
+	}
+	
+	public void test172() {
+		Random r = new Random(351);
+		for (int i=0; i < 2000; ++i)
+			lex.add(Integer.toString(r.nextInt(5000), 36));
+		String[] all = lex.toArray(null);
+		List<String> list = new ArrayList<>();
+		String last = "";
+		for (int i=0; i < all.length; i += 50) {
+			list.clear();
+			if (i == 0) lex.consumeRange(last, null, 50, list::add);
+			else lex.consumeAfter(last, 50, list::add);
+			assertEquals(Arrays.asList(all).subList(i, Math.min(i + 50, all.length)), list);
+			last = list.get(list.size() - 1);
+		}
+		for (int i=0; i < 100; ++i) {
+			int lo = r.nextInt(all.length), hi = lo + r.nextInt(all.length - lo);
+			list.clear();
+			assertEquals(hi - lo, lex.consumeRange(all[lo], all[hi], all.length, list::add));
+			assertEquals(Arrays.asList(all).subList(lo, hi), list);
+		}
+	}
+	
 	private void test(Lexicon r, String name, String ... expected) {
 		assertEquals(name +".size()",expected.length,r.size());
 		String[] array = r.toArray(null);
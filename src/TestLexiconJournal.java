@@ -0,0 +1,113 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import edu.uwm.cs351.Lexicon;
+import edu.uwm.cs351.LexiconJournal;
+
+
+public class TestLexiconJournal extends TestCase {
+
+	Path dir, file;
+	LexiconJournal journal;
+	Lexicon lex;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		dir = Files.createTempDirectory("journal");
+		file = dir.resolve("words.txt");
+		journal = new LexiconJournal(dir.resolve("words.txt.journal"));
+		lex = new Lexicon(true);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		for (Path p : Files.list(dir).toArray(Path[]::new))
+			Files.delete(p);
+		Files.delete(dir);
+		super.tearDown();
+	}
+
+	private String read(Path p) throws IOException {
+		return new String(Files.readAllBytes(p), StandardCharsets.UTF_8);
+	}
+
+	public void test00() throws IOException {
+		assertEquals(0, journal.replay(lex));
+		assertEquals(0, journal.commit());
+		assertFalse(Files.exists(journal.getPath()));
+	}
+
+	public void test01() throws IOException {
+		journal.add("cat", 0);
+		journal.add("dog", 12);
+		assertEquals(2, journal.getPending());
+		assertEquals(2, journal.commit());
+		assertEquals(0, journal.getPending());
+		journal.add("ant", 0);
+		assertEquals(1, journal.commit());
+		assertEquals("cat\ndog\t12\nant\n", read(journal.getPath()));
+
+		assertEquals(3, journal.replay(lex));
+		assertEquals("[ant, cat, dog]", Arrays.toString(lex.toArray(null)));
+		assertEquals(12, lex.getWeight("dog"));
+	}
+
+	public void test02() throws IOException {
+		// a commit cut short leaves a partial line, which is dropped
+		Files.write(journal.getPath(), "cat\ndo".getBytes(StandardCharsets.UTF_8));
+		assertEquals(1, journal.replay(lex));
+		assertEquals("[cat]", Arrays.toString(lex.toArray(null)));
+		assertEquals("cat\n", read(journal.getPath()));
+		journal.add("emu", 0);
+		journal.commit();
+		assertEquals("cat\nemu\n", read(journal.getPath()));
+	}
+
+	public void test03() throws IOException {
+		Files.write(file, "bee\n".getBytes(StandardCharsets.UTF_8));
+		lex.add("bee");
+		lex.add("cat", 5);
+		journal.add("cat", 5);
+		journal.commit();
+		lex.add("fly");
+		journal.add("fly", 0);
+		journal.compact(file, lex);
+		assertEquals("bee\ncat\t5\nfly\n", read(file));
+		assertEquals("", read(journal.getPath()));
+		assertEquals(0, journal.getPending());
+		assertEquals(2, Files.list(dir).count());
+	}
+
+	public void test04() throws IOException {
+		Files.write(journal.getPath(), "cat\tmany\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE);
+		try {
+			journal.replay(lex);
+			assertFalse("replay should reject a bad weight", true);
+		} catch (IOException ex) {
+			assertTrue(true);
+		}
+	}
+
+	public void test05() throws IOException {
+		// the main file cannot be replaced by a file, so compacting fails after writing
+		Files.createDirectory(file);
+		Files.write(file.resolve("inside"), new byte[0]);
+		lex.add("cat");
+		journal.add("cat", 0);
+		try {
+			journal.compact(file, lex);
+			assertFalse("compact should fail to replace a directory", true);
+		} catch (IOException ex) {
+			assertTrue(true);
+		}
+		assertFalse(Files.exists(file.resolveSibling("words.txt.tmp")));
+		assertEquals(1, journal.getPending());
+		Files.delete(file.resolve("inside"));
+	}
+}
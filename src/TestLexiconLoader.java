@@ -0,0 +1,107 @@
+import java.io.IOException;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import junit.framework.TestCase;
+import edu.uwm.cs351.Lexicon;
+import edu.uwm.cs351.LexiconLoader;
+
+
+public class TestLexiconLoader extends TestCase {
+
+	Path file;
+	Lexicon lex;
+	List<String> warnings;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		file = Files.createTempFile("lexicon", ".txt");
+		lex = new Lexicon(true);
+		warnings = new ArrayList<>();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		Files.deleteIfExists(file);
+		super.tearDown();
+	}
+
+	private int load(String contents) throws IOException {
+		Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+		return LexiconLoader.load(file, lex, warnings::add);
+	}
+
+	public void test00() throws IOException {
+		assertEquals(0, load(""));
+		assertEquals(0, lex.size());
+		try {
+			LexiconLoader.load(file, null, warnings::add);
+			assertFalse("load should not accept null lexicon", true);
+		} catch (NullPointerException ex) {
+			assertTrue(true);
+		}
+	}
+
+	public void test01() throws IOException {
+		assertEquals(4, load("apple\nbanana\ncherry\ndate"));
+		assertEquals("[apple, banana, cherry, date]", Arrays.toString(lex.toArray(null)));
+		assertTrue(warnings.isEmpty());
+	}
+
+	public void test02() throws IOException {
+		assertEquals(5, load("pear\r\nfig\r\napple\r\nfig\r\n\u00e9clair\r\nkiwi\r\n"));
+		assertEquals("[apple, fig, kiwi, pear, \u00e9clair]", Arrays.toString(lex.toArray(null)));
+	}
+
+	public void test03() throws IOException {
+		assertEquals(4, load("the\t500\ncat\t20\nsat\tmany\non\n"));
+		assertEquals(500, lex.getWeight("the"));
+		assertEquals(20, lex.getWeight("cat"));
+		assertEquals(0, lex.getWeight("sat"));
+		assertEquals(Arrays.asList("Ignoring bad weight for sat"), warnings);
+		assertEquals(4, lex.size());
+	}
+
+	public void test04() throws IOException {
+		// big enough to be split into chunks
+		Random r = new Random(351);
+		StringBuilder sb = new StringBuilder();
+		TreeSet<String> expected = new TreeSet<>();
+		while (sb.length() < 3 << 20) {
+			String w = Integer.toString(r.nextInt(1 << 16), 36);
+			sb.append(w).append('\n');
+			expected.add(w);
+		}
+		String[] sorted = expected.toArray(new String[expected.size()]);
+		assertEquals(sorted.length, load(sb.toString()));
+		assertEquals(sorted.length, lex.size());
+		assertTrue(Arrays.equals(sorted, lex.toArray(null)));
+		
+		lex = new Lexicon(false);
+		assertEquals(sorted.length, load(String.join("\n", sorted) + "\n"));
+		assertTrue(Arrays.equals(sorted, lex.toArray(null)));
+	}
+
+	public void test05() throws IOException {
+		// words already present are not counted
+		lex.add("fig");
+		assertEquals(2, load("fig\nkiwi\napple\nkiwi\n"));
+		assertEquals(3, lex.size());
+		// a decoding error reaches the caller as itself, not wrapped
+		Files.write(file, new byte[] { 'o', 'k', '\n', (byte)0xC3, '(', '\n' });
+		try {
+			LexiconLoader.load(file, lex, warnings::add);
+			assertFalse("load should not accept a file that is not UTF-8", true);
+		} catch (MalformedInputException ex) {
+			assertTrue(true);
+		}
+	}
+}
@@ -0,0 +1,5 @@
+import edu.uwm.cs351.LexiconMetrics;
+
+public class TestLexiconMetrics extends LexiconMetrics.TestInternals {
+	// run this to test the counters of the LexiconMetrics class
+}
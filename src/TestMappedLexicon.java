@@ -0,0 +1,129 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+import edu.uwm.cs351.Lexicon;
+import edu.uwm.cs351.MappedLexicon;
+
+
+public class TestMappedLexicon extends TestCase {
+
+	Lexicon lex;
+	MappedLexicon mapped;
+	Path file;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		lex = new Lexicon(true);
+		file = File.createTempFile("lexicon", ".idx").toPath();
+	}
+
+	@Override
+	protected void tearDown() {
+		mapped = null;
+		file.toFile().delete();
+	}
+
+	private void map() throws IOException {
+		String[] words = lex.toArray(null);
+		MappedLexicon.write(file, words, words.length);
+		mapped = MappedLexicon.open(file);
+	}
+
+	public void test00() throws IOException {
+		map();
+		assertEquals(0, mapped.size());
+		assertNull(mapped.getMin());
+		assertFalse(mapped.contains(""));
+		assertFalse(mapped.contains(null));
+		assertNull(mapped.getNext(""));
+	}
+
+	public void test01() throws IOException {
+		for (String s : new String[] {"but", "hex", "up", "down", "user", "caf\u00e9", "\ud83d\ude00"})
+			lex.add(s);
+		map();
+		assertEquals(7, mapped.size());
+		assertTrue(mapped.contains("hex"));
+		assertTrue(mapped.contains("caf\u00e9"));
+		assertTrue(mapped.contains("\ud83d\ude00"));
+		assertFalse(mapped.contains("he"));
+		assertEquals("but", mapped.getMin());
+		assertEquals("but", mapped.getNext("burn"));
+		assertEquals("down", mapped.getNext("caf\u00e9"));
+		assertEquals("up", mapped.getNext("under"));
+		assertEquals("\ud83d\ude00", mapped.getNext("users"));
+		String[] expected = lex.toArray(null);
+		String[] actual = mapped.toArray(null);
+		for (int i=0; i < expected.length; ++i)
+			assertEquals(expected[i], actual[i]);
+	}
+
+	public void test02() throws IOException {
+		for (String s : new String[] {"landlord", "landfill", "label", "lady", "last", "lake", "land",
+				"landing", "labor", "lamp", "lane", "large"})
+			lex.add(s);
+		map();
+		ArrayList<String> list = new ArrayList<>();
+		mapped.consumeAllWithPrefix(list::add, "lan");
+		assertEquals("[land, landfill, landing, landlord, lane]", list.toString());
+		list.clear();
+		mapped.consumeAllWithPrefix(list::add, "landx");
+		assertEquals("[]", list.toString());
+		list.clear();
+		mapped.consumeAll(list::add);
+		assertEquals(12, list.size());
+	}
+
+	public void test03() throws IOException {
+		try (RandomAccessFile f = new RandomAccessFile(file.toFile(), "rw")) {
+			f.writeInt(42);
+		}
+		try {
+			MappedLexicon.open(file);
+			assertFalse("should not open a file without the magic number", true);
+		} catch (IOException ex) {
+			assertTrue(true);
+		}
+		try {
+			MappedLexicon.write(file, new String[] {"b", "a"}, 2);
+			assertFalse("should not write unsorted strings", true);
+		} catch (IllegalArgumentException ex) {
+			assertTrue(true);
+		}
+	}
+
+	public void test04() throws IOException {
+		lex.add("ant");
+		lex.add("bee");
+		lex.add("cat");
+		map();
+		mapped = null;
+		// offset 2 (was 6) is now less than offset 1 (3), though the ends are fine
+		try (RandomAccessFile f = new RandomAccessFile(file.toFile(), "rw")) {
+			f.seek(16);
+			f.writeInt(2);
+		}
+		try {
+			MappedLexicon.open(file);
+			assertFalse("should not open a file whose offsets decrease", true);
+		} catch (IOException ex) {
+			assertTrue(true);
+		}
+		// an offset past the end of the data
+		try (RandomAccessFile f = new RandomAccessFile(file.toFile(), "rw")) {
+			f.seek(16);
+			f.writeInt(100);
+		}
+		try {
+			MappedLexicon.open(file);
+			assertFalse("should not open a file with an offset out of bounds", true);
+		} catch (IOException ex) {
+			assertTrue(true);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+import junit.framework.TestCase;
+import edu.uwm.cs351.PrefixCache;
+
+
+public class TestPrefixCache extends TestCase {
+
+	PrefixCache cache;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		cache = new PrefixCache(5);
+	}
+
+	public void test00() {
+		assertNull(cache.get("a"));
+		assertEquals(0, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals(0, cache.size());
+		try {
+			new PrefixCache(-1);
+			assertFalse("negative budget should be rejected", true);
+		} catch (IllegalArgumentException ex) {
+			assertTrue(true);
+		}
+	}
+
+	public void test01() {
+		String[] an = { "and", "ant" };
+		cache.put("an", an);
+		assertSame(an, cache.get("an"));
+		assertNull(cache.get("a"));
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		cache.put("an", new String[] { "and" });
+		assertEquals(1, cache.getCachedStrings());
+		cache.put("everything", new String[6]);
+		assertNull(cache.get("everything"));
+		assertEquals(1, cache.size());
+	}
+
+	public void test02() {
+		cache.put("a", new String[] { "a1", "a2" });
+		cache.put("b", new String[] { "b1", "b2" });
+		assertNotNull(cache.get("a")); // b is now least recently used
+		cache.put("c", new String[] { "c1", "c2" });
+		assertNull(cache.get("b"));
+		assertNotNull(cache.get("a"));
+		assertNotNull(cache.get("c"));
+		assertEquals(1, cache.getEvictions());
+		assertEquals(4, cache.getCachedStrings());
+	}
+
+	public void test03() {
+		cache.put("", new String[] {});
+		cache.put("c", new String[] {});
+		cache.put("ca", new String[] {});
+		cache.put("cb", new String[] {});
+		cache.put("cat", new String[] {});
+		cache.put("cats", new String[] {});
+		cache.invalidate("cat");
+		assertNull(cache.get(""));
+		assertNull(cache.get("c"));
+		assertNull(cache.get("ca"));
+		assertNull(cache.get("cat"));
+		assertNotNull(cache.get("cb"));
+		assertNotNull(cache.get("cats"));
+		cache.put("d", new String[] {});
+		cache.put("catap", new String[] {});
+		cache.invalidate("catapult"); // more prefixes than entries
+		assertNull(cache.get("catap"));
+		assertNotNull(cache.get("d"));
+		assertNotNull(cache.get("cats"));
+	}
+
+	public void test04() {
+		// misses are cached but still count against the budget
+		for (int i=0; i < 1000; ++i)
+			cache.put("none" + i, new String[] {});
+		assertEquals(5, cache.size());
+		assertEquals(5, cache.getCachedStrings());
+		assertEquals(995, cache.getEvictions());
+		assertNotNull(cache.get("none999"));
+		assertNull(cache.get("none0"));
+		cache.put("a", new String[] { "a1", "a2", "a3" });
+		assertEquals(3, cache.size());
+	}
+}
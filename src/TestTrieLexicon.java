@@ -0,0 +1,135 @@
+import java.util.ArrayList;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import edu.uwm.cs351.Lexicon;
+import edu.uwm.cs351.TrieLexicon;
+
+
+public class TestTrieLexicon extends TestCase {
+
+	TrieLexicon lex;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		lex = new TrieLexicon();
+	}
+
+	public void test00() {
+		assertEquals(0, lex.size());
+		assertNull(lex.getMin());
+		assertFalse(lex.contains(""));
+		assertFalse(lex.contains(null));
+		assertNull(lex.getNext(""));
+	}
+
+	public void test01() {
+		assertTrue(lex.add("apple"));
+		assertFalse(lex.add("apple"));
+		assertTrue(lex.add("app"));
+		assertTrue(lex.add("apply"));
+		assertTrue(lex.add("ape"));
+		assertTrue(lex.add(""));
+		assertEquals(5, lex.size());
+		assertTrue(lex.contains("app"));
+		assertTrue(lex.contains(""));
+		assertFalse(lex.contains("ap"));
+		assertFalse(lex.contains("appl"));
+		assertFalse(lex.contains("apples"));
+		assertEquals("", lex.getMin());
+	}
+
+	public void test02() {
+		for (String s : new String[] {"but", "hex", "up", "down", "user"})
+			lex.add(s);
+		assertEquals("but", lex.getNext("burn"));
+		assertEquals("but", lex.getNext("bur"));
+		assertEquals("down", lex.getNext("button"));
+		assertEquals("but", lex.getNext(""));
+		assertEquals("up", lex.getNext("under"));
+		assertEquals("user", lex.getNext("up"));
+		assertEquals("user", lex.getNext("us"));
+		assertNull(lex.getNext("users"));
+		try {
+			lex.getNext(null);
+			assertFalse("getNext should not accept null", true);
+		} catch (NullPointerException ex) {
+			assertTrue(true);
+		}
+	}
+
+	public void test03() {
+		for (String s : new String[] {"landlord", "landfill", "label", "lady", "last", "lake", "land",
+				"landing", "labor", "lamp", "lane", "large"})
+			lex.add(s);
+		assertEquals("[land, landfill, landing, landlord, lane]", consume("lan"));
+		assertEquals("[land, landfill, landing, landlord]", consume("land"));
+		assertEquals("[landfill]", consume("landf"));
+		assertEquals("[]", consume("landx"));
+		assertEquals("[]", consume("landlords"));
+		assertEquals("[label, labor]", consume("lab"));
+		assertEquals(12, lex.toArray(null).length);
+		assertEquals("label", lex.toArray(null)[0]);
+	}
+
+	public void test04() {
+		String[] array = { "meow", "berry", "rose", "bunny", "hide", "poe", "milk", "rose" };
+		assertEquals(7, lex.addAll(array, 0, array.length));
+		String[] s2 = new String[2];
+		String[] result = lex.toArray(s2);
+		assertNotSame(s2, result);
+		assertEquals("berry", result[0]);
+		assertEquals("rose", result[6]);
+		String[] s8 = new String[8];
+		s8[7] = "end";
+		assertSame(s8, lex.toArray(s8));
+		assertEquals("end", s8[7]);
+	}
+
+	public void test05() {
+		Random r = new Random(351);
+		Lexicon tree = new Lexicon(true);
+		for (int i=0; i < 2000; ++i) {
+			String s = Integer.toString(r.nextInt(5000), 7 + r.nextInt(30));
+			assertEquals(tree.add(s), lex.add(s));
+		}
+		assertEquals(tree.size(), lex.size());
+		assertEquals(tree.getMin(), lex.getMin());
+		for (int i=0; i < 2000; ++i) {
+			String s = Integer.toString(r.nextInt(5000), 7 + r.nextInt(30));
+			assertEquals(tree.contains(s), lex.contains(s));
+			assertEquals(s, tree.getNext(s), lex.getNext(s));
+		}
+		for (String p : new String[] {"", "1", "2a", "10", "zz", "3"}) {
+			ArrayList<String> expected = new ArrayList<>();
+			tree.consumeAllWithPrefix(expected::add, p);
+			assertEquals(expected.toString(), consume(p));
+		}
+	}
+
+	public void test06() {
+		Random r = new Random(351);
+		Lexicon tree = new Lexicon(true);
+		for (int i=0; i < 2000; ++i) {
+			String s = Integer.toString(r.nextInt(100000), 5 + r.nextInt(8));
+			tree.add(s);
+			lex.add(s);
+		}
+		for (String word : new String[] { "1234", "3300", "77", "10101", "" }) {
+			for (int k=0; k <= 2; ++k) {
+				ArrayList<String> expected = new ArrayList<>();
+				tree.consumeWithinDistance(word, k, expected::add);
+				ArrayList<String> list = new ArrayList<>();
+				lex.consumeWithinDistance(word, k, list::add);
+				assertEquals(word + " within " + k, expected, list);
+			}
+		}
+	}
+
+	private String consume(String prefix) {
+		ArrayList<String> list = new ArrayList<>();
+		lex.consumeAllWithPrefix(list::add, prefix);
+		return list.toString();
+	}
+}
@@ -0,0 +1,456 @@
+package edu.uwm.cs351;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Set of strings, sorted lexicographically, stored without an object per string.
+ * The characters of all the strings live one after another in a single byte
+ * array (the arena), and the tree is an AVL tree whose nodes are indices
+ * into parallel primitive arrays: where each string starts in the arena,
+ * the left and right children, and the height.  A lexicon of millions of short
+ * words is then a handful of arrays rather than millions of nodes, strings
+ * and character arrays for the garbage collector to trace.
+ * <p>
+ * Each char is stored in one to three bytes in the manner of UTF-8, but char by
+ * char (surrogates are encoded separately, as in CESU-8), so that comparing the
+ * bytes as unsigned numbers orders strings exactly as String.compareTo does,
+ * and a string's bytes start with its prefix's bytes.  Lookups compare bytes
+ * directly; strings are only created for results.
+ * Strings are stored in the order they were added, so string i occupies the
+ * arena from _start[i] up to _start[i+1].
+ */
+public class ArenaLexicon {
+
+	private static final int NONE = -1;
+	private static final int INITIAL = 16;
+
+	private byte[] _arena = new byte[INITIAL * 8];
+	private int[] _start = new int[INITIAL + 1];
+	private int[] _left = new int[INITIAL];
+	private int[] _right = new int[INITIAL];
+	private byte[] _height = new byte[INITIAL];
+	private int _root = NONE;
+	private int _manyNodes;
+
+	/**
+	 * Check the invariant: the arena offsets never decrease, every node is
+	 * reached exactly once from the root, the strings are in order, and
+	 * the tree is an AVL tree with correct heights.
+	 * Returns false if any problem is found.  It uses
+	 * {@link #_report(String)} to report any problem.
+	 * @return whether invariant is currently true.
+	 */
+	private boolean _wellFormed() {
+		if (_manyNodes < 0 || _manyNodes > _left.length) return _report("bad count " + _manyNodes);
+		if (_start[0] != 0) return _report("arena does not start at zero");
+		for (int i=0; i < _manyNodes; ++i)
+			if (_start[i] > _start[i+1]) return _report("arena offsets decrease at " + i);
+		if (_start[_manyNodes] > _arena.length) return _report("arena overflows");
+		if ((_root == NONE) != (_manyNodes == 0)) return _report("root is " + _root + " with " + _manyNodes + " nodes");
+		boolean[] seen = new boolean[_manyNodes];
+		int[] count = new int[1];
+		if (_checkSubtree(_root, NONE, NONE, seen, count) < 0) return false; // problem already reported
+		if (count[0] != _manyNodes) return _report("_manyNodes is " + _manyNodes + " but tree has " + count[0]);
+		return true;
+	}
+
+	/**
+	 * Check the subtree, with all its strings strictly between those of lo and hi.
+	 * @return height of the subtree, or negative if a problem was reported
+	 */
+	private int _checkSubtree(int n, int lo, int hi, boolean[] seen, int[] count) {
+		if (n == NONE) return 0;
+		if (n < 0 || n >= _manyNodes) return _reportNeg("link to nonexistent node " + n);
+		if (seen[n]) return _reportNeg("node " + n + " reached twice");
+		seen[n] = true;
+		++count[0];
+		if (lo != NONE && compareNodes(n, lo) <= 0) return _reportNeg("node out of order: " + string(n));
+		if (hi != NONE && compareNodes(n, hi) >= 0) return _reportNeg("node out of order: " + string(n));
+		int l = _checkSubtree(_left[n], lo, n, seen, count);
+		if (l < 0) return -1;
+		int r = _checkSubtree(_right[n], n, hi, seen, count);
+		if (r < 0) return -1;
+		int h = 1 + Math.max(l, r);
+		if (_height[n] != h) return _reportNeg("height of " + string(n) + " is " + _height[n] + " but should be " + h);
+		if (Math.abs(l - r) > 1) return _reportNeg("unbalanced at " + string(n));
+		return h;
+	}
+
+	private static boolean _doReport = true;
+
+	/**
+	 * Used to report an error found when checking the invariant.
+	 * @param error string to print to report the exact error found
+	 * @return false always
+	 */
+	private boolean _report(String error) {
+		if (_doReport) System.out.println("Invariant error found: " + error);
+		return false;
+	}
+
+	private int _reportNeg(String error) {
+		_report(error);
+		return -1;
+	}
+
+	/**
+	 * Creates an empty lexicon.
+	 */
+	public ArenaLexicon() {
+		assert _wellFormed() : "invariant false at end of constructor";
+	}
+
+	/// Encoding
+
+	/**
+	 * Encode a string char by char, each in one to three bytes.
+	 * The result belongs to the caller, so lookups share no state
+	 * and may run concurrently with each other.
+	 * @param s string to encode, not null
+	 * @return the bytes, exactly as many as the encoding needs
+	 */
+	private static byte[] encode(String s) {
+		int length = 0;
+		for (int i=0; i < s.length(); ++i) {
+			char c = s.charAt(i);
+			length += c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+		}
+		byte[] out = new byte[length];
+		int pos = 0;
+		for (int i=0; i < s.length(); ++i) {
+			char c = s.charAt(i);
+			if (c < 0x80) out[pos++] = (byte)c;
+			else if (c < 0x800) {
+				out[pos++] = (byte)(0xC0 | c >> 6);
+				out[pos++] = (byte)(0x80 | c & 0x3F);
+			} else {
+				out[pos++] = (byte)(0xE0 | c >> 12);
+				out[pos++] = (byte)(0x80 | c >> 6 & 0x3F);
+				out[pos++] = (byte)(0x80 | c & 0x3F);
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Create the string stored for a node.
+	 * @param n node index
+	 * @return its string
+	 */
+	private String string(int n) {
+		int from = _start[n], to = _start[n+1];
+		char[] chars = new char[to - from];
+		int length = 0;
+		for (int i=from; i < to; ++length) {
+			int b = _arena[i++] & 0xFF;
+			if (b < 0x80) chars[length] = (char)b;
+			else if (b < 0xE0) chars[length] = (char)((b & 0x1F) << 6 | _arena[i++] & 0x3F);
+			else {
+				int b2 = _arena[i++] & 0x3F;
+				chars[length] = (char)((b & 0x0F) << 12 | b2 << 6 | _arena[i++] & 0x3F);
+			}
+		}
+		return new String(chars, 0, length);
+	}
+
+	/**
+	 * Compare the string at a node with an encoded key.
+	 * @return negative, zero or positive as the node's string is less, equal or greater
+	 */
+	private int compareKey(int n, byte[] key) {
+		return Arrays.compareUnsigned(_arena, _start[n], _start[n+1], key, 0, key.length);
+	}
+
+	private int compareNodes(int n, int m) {
+		return Arrays.compareUnsigned(_arena, _start[n], _start[n+1], _arena, _start[m], _start[m+1]);
+	}
+
+	/** Whether the string at a node starts with an encoded key. */
+	private boolean startsWithKey(int n, byte[] key) {
+		int from = _start[n];
+		return _start[n+1] - from >= key.length &&
+				Arrays.equals(_arena, from, from + key.length, key, 0, key.length);
+	}
+
+	/// Accessors
+
+	/** Gets the size of this lexicon.
+	 * @return the count of strings in this lexicon
+	 */
+	public int size() {
+		assert _wellFormed() : "invariant false at start of size()";
+		return _manyNodes;
+	}
+
+	/**
+	 * Gets the [lexicographically] least string in the lexicon.
+	 * @return the least string or null if empty
+	 */
+	public String getMin() {
+		assert _wellFormed() : "invariant false at start of getMin()";
+		if (_root == NONE) return null;
+		int n = _root;
+		while (_left[n] != NONE) n = _left[n];
+		return string(n);
+	}
+
+	/**
+	 * Checks if the given string is in the lexicon.
+	 * @param str the string to search for (maybe null)
+	 * @return true if str is in the lexicon, false otherwise
+	 */
+	public boolean contains(String str) {
+		assert _wellFormed() : "invariant false at start of contains()";
+		if (str == null) return false;
+		byte[] key = encode(str);
+		int n = _root;
+		while (n != NONE) {
+			int c = compareKey(n, key);
+			if (c == 0) return true;
+			n = c > 0 ? _left[n] : _right[n];
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the next [lexicographically] greater string than the given string.
+	 * @param str the string of which to find the next greatest
+	 * @return the next string greater than str
+	 * @throws NullPointerException if str is null
+	 */
+	public String getNext(String str) {
+		assert _wellFormed() : "invariant false at start of getNext()";
+		if (str == null) throw new NullPointerException("Cannot get next of null");
+		byte[] key = encode(str);
+		int n = _root;
+		int result = NONE;
+		while (n != NONE) {
+			if (compareKey(n, key) <= 0) n = _right[n];
+			else {
+				result = n;
+				n = _left[n];
+			}
+		}
+		return result == NONE ? null : string(result);
+	}
+
+	/**
+	 * Accept into the consumer all strings in this lexicon.
+	 * @param consumer the consumer to accept the strings
+	 * @throws NullPointerException if consumer is null
+	 */
+	public void consumeAll(Consumer<String> consumer) {
+		consumeAllWithPrefix(consumer,"");
+	}
+
+	/**
+	 * Accept into the consumer all strings that start with the given prefix.
+	 * @param consumer the consumer to accept the strings
+	 * @param prefix the prefix to find all strings starting with
+	 * @throws NullPointerException if consumer or prefix is null
+	 */
+	public void consumeAllWithPrefix(Consumer<String> consumer, String prefix) {
+		assert _wellFormed() : "invariant false at start of consumeAllWithPrefix()";
+		if (consumer == null) throw new NullPointerException("Can't accept into null consumer");
+		if (prefix == null) throw new NullPointerException("Prefix can't be null");
+		consumeAllHelper(consumer, encode(prefix), _root);
+	}
+
+	private void consumeAllHelper(Consumer<String> consumer, byte[] key, int n) {
+		if (n == NONE) return;
+		int c = compareKey(n, key);
+		boolean match = startsWithKey(n, key);
+		if (c > 0) consumeAllHelper(consumer, key, _left[n]);
+		if (match) consumer.accept(string(n));
+		if (c < 0 || match) consumeAllHelper(consumer, key, _right[n]);
+	}
+
+	/**
+	 * Return an array of all the strings in this lexicon (in order).
+	 * @param array to use unless null or too small
+	 * @return array copied into
+	 */
+	public String[] toArray(String[] array) {
+		assert _wellFormed() : "invariant false at the start of toArray()";
+		if (array == null || array.length < _manyNodes) array = new String[_manyNodes];
+		copyInto(array, 0, _root);
+		return array;
+	}
+
+	private int copyInto(String[] array, int i, int n) {
+		if (n == NONE) return i;
+		i = copyInto(array, i, _left[n]);
+		array[i++] = string(n);
+		return copyInto(array, i, _right[n]);
+	}
+
+	/**
+	 * Gets the number of bytes used to store the strings, for comparing
+	 * against the size of the strings themselves.
+	 * @return the number of bytes in use in the arena
+	 */
+	public int arenaLength() {
+		return _start[_manyNodes];
+	}
+
+	/// Mutators
+
+	/**
+	 * Add a new string to the lexicon. If it already exists, return false.
+	 * @param str string to add, must not be null
+	 * @return true if str was added, false otherwise
+	 * @throws NullPointerException if str is null
+	 */
+	public boolean add(String str) {
+		assert _wellFormed() : "invariant false at start of add()";
+		if (str == null) throw new NullPointerException("cannot add null");
+		byte[] key = encode(str);
+
+		int[] path = new int[_root == NONE ? 0 : _height[_root]];
+		int depth = 0;
+		int n = _root;
+		int c = 0;
+		while (n != NONE) {
+			path[depth++] = n;
+			c = compareKey(n, key);
+			if (c == 0) return false;
+			n = c > 0 ? _left[n] : _right[n];
+		}
+
+		n = newNode(key);
+		if (depth == 0) _root = n;
+		else if (c > 0) _left[path[depth-1]] = n;
+		else _right[path[depth-1]] = n;
+		for (int i = depth - 1; i >= 0; --i) {
+			int p = path[i];
+			int r = rebalance(p);
+			if (r == p) continue;
+			if (i == 0) _root = r;
+			else if (_left[path[i-1]] == p) _left[path[i-1]] = r;
+			else _right[path[i-1]] = r;
+		}
+
+		assert _wellFormed() : "invariant false at end of add()";
+		return true;
+	}
+
+	/**
+	 * Add all strings in the array into this lexicon from the range [lo,hi).
+	 * If this lexicon is empty and the range is already sorted without
+	 * duplicates, the tree is built directly in linear time.
+	 * @param array source
+	 * @param lo index lower bound
+	 * @param hi index upper bound
+	 * @return number of strings added
+	 * @throws NullPointerException if array (or any string in the range) is null
+	 */
+	public int addAll(String[] array, int lo, int hi) {
+		assert _wellFormed() : "invariant false at start of addAll()";
+		if (array == null) throw new NullPointerException("Cannot add from null array");
+
+		boolean sorted = _root == NONE;
+		for (int i=lo; sorted && i < hi; ++i)
+			sorted = array[i] != null && (i == lo || array[i-1].compareTo(array[i]) < 0);
+		if (!sorted) {
+			int count = 0;
+			for (int i=lo; i < hi; ++i)
+				if (add(array[i])) ++count;
+			return count;
+		}
+
+		for (int i=lo; i < hi; ++i) {
+			newNode(encode(array[i]));
+		}
+		_root = buildBalanced(0, hi - lo);
+		assert _wellFormed() : "invariant false at end of addAll()";
+		return hi - lo;
+	}
+
+	/**
+	 * Link the nodes [lo,hi), whose strings are in order, into a perfectly balanced tree.
+	 * @return the root, or NONE if the range is empty
+	 */
+	private int buildBalanced(int lo, int hi) {
+		if (lo == hi) return NONE;
+		int mid = lo + (hi - lo) / 2;
+		_left[mid] = buildBalanced(lo, mid);
+		_right[mid] = buildBalanced(mid + 1, hi);
+		fix(mid);
+		return mid;
+	}
+
+	/**
+	 * Create a leaf node for an encoded key, appending the key to the arena.
+	 * @param key the encoded string
+	 * @return the new node's index
+	 */
+	private int newNode(byte[] key) {
+		int n = _manyNodes;
+		if (n == _left.length) {
+			int capacity = n * 2;
+			_start = Arrays.copyOf(_start, capacity + 1);
+			_left = Arrays.copyOf(_left, capacity);
+			_right = Arrays.copyOf(_right, capacity);
+			_height = Arrays.copyOf(_height, capacity);
+		}
+		int from = _start[n];
+		if ((long)from + key.length > _arena.length) {
+			long capacity = Math.max(2L * _arena.length, (long)from + key.length);
+			if (capacity > Integer.MAX_VALUE - 8) capacity = Integer.MAX_VALUE - 8;
+			if (capacity < (long)from + key.length) throw new IllegalStateException("arena is full");
+			_arena = Arrays.copyOf(_arena, (int)capacity);
+		}
+		System.arraycopy(key, 0, _arena, from, key.length);
+		_start[n+1] = from + key.length;
+		_left[n] = _right[n] = NONE;
+		_height[n] = 1;
+		++_manyNodes;
+		return n;
+	}
+
+	private int height(int n) {
+		return n == NONE ? 0 : _height[n];
+	}
+
+	private void fix(int n) {
+		_height[n] = (byte)(1 + Math.max(height(_left[n]), height(_right[n])));
+	}
+
+	private int rotateRight(int n) {
+		int l = _left[n];
+		_left[n] = _right[l];
+		_right[l] = n;
+		fix(n);
+		fix(l);
+		return l;
+	}
+
+	private int rotateLeft(int n) {
+		int r = _right[n];
+		_right[n] = _left[r];
+		_left[r] = n;
+		fix(n);
+		fix(r);
+		return r;
+	}
+
+	/**
+	 * Restore the AVL property at a node whose children are balanced
+	 * but may differ in height by two.
+	 * @param n the node to rebalance
+	 * @return the new root of the subtree
+	 */
+	private int rebalance(int n) {
+		fix(n);
+		int balance = height(_left[n]) - height(_right[n]);
+		if (balance > 1) {
+			if (height(_left[_left[n]]) < height(_right[_left[n]])) _left[n] = rotateLeft(_left[n]);
+			return rotateRight(n);
+		}
+		if (balance < -1) {
+			if (height(_right[_right[n]]) < height(_left[_right[n]])) _right[n] = rotateRight(_right[n]);
+			return rotateLeft(n);
+		}
+		return n;
+	}
+}
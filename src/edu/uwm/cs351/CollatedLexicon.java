@@ -0,0 +1,319 @@
+package edu.uwm.cs351;
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Set of strings, sorted by a {@link Collator} for some locale rather than by
+ * {@link String#compareTo}, so that (for instance) "apple" comes before "Zebra"
+ * and "&eacute;clair" is next to "eclair".  Strings that the collator considers
+ * equal (at its strength) are ordered by String.compareTo, so distinct strings
+ * are always kept distinct.
+ * <p>
+ * Running the collator is slow, so each node stores its string's collation key
+ * as bytes, computed once when the string is added; lookups compute the key
+ * of their argument once and then compare bytes as they go down the tree,
+ * which is an AVL tree.  (The order is therefore that of the collation keys,
+ * which for a few of the JDK's collators, such as the French one, differs
+ * from {@link Collator#compare} for some accented strings.)  Strings with
+ * a common prefix need not be next to each other in collation order, so
+ * {@link #consumeAllWithPrefix(Consumer, String)} examines every string.
+ */
+public class CollatedLexicon {
+
+	private static class Node {
+		final String string;
+		final byte[] key;
+		Node left, right;
+		int height = 1;
+		Node(String s, byte[] k) { string = s; key = k; }
+	}
+
+	private final Collator _collator;
+	private Node _root;
+	private int _manyNodes;
+
+	/**
+	 * Check the invariant: every node's key is its string's collation key,
+	 * the nodes are in order, the tree is an AVL tree with correct heights,
+	 * and the count is the number of nodes.
+	 * Returns false if any problem is found.  It uses
+	 * {@link #_report(String)} to report any problem.
+	 * @return whether invariant is currently true.
+	 */
+	private boolean _wellFormed() {
+		if (_collator == null) return _report("collator is null");
+		int[] count = new int[1];
+		if (_checkSubtree(_root, null, null, count) < 0) return false; // problem already reported
+		if (count[0] != _manyNodes) return _report("_manyNodes is " + _manyNodes + " but should be " + count[0]);
+		return true;
+	}
+
+	/**
+	 * Check the subtree, with all its strings strictly between lo and hi (if not null).
+	 * @return height of the subtree, or negative if a problem was reported
+	 */
+	private int _checkSubtree(Node n, Node lo, Node hi, int[] count) {
+		if (n == null) return 0;
+		if (++count[0] > _manyNodes) return _reportNeg("more nodes than " + _manyNodes + " (or a cycle)");
+		if (n.string == null) return _reportNeg("null string found");
+		if (!Arrays.equals(n.key, key(n.string))) return _reportNeg("wrong key for " + n.string);
+		if (lo != null && compare(n.key, n.string, lo) <= 0) return _reportNeg("node out of order: " + n.string);
+		if (hi != null && compare(n.key, n.string, hi) >= 0) return _reportNeg("node out of order: " + n.string);
+		int l = _checkSubtree(n.left, lo, n, count);
+		if (l < 0) return -1;
+		int r = _checkSubtree(n.right, n, hi, count);
+		if (r < 0) return -1;
+		int h = 1 + Math.max(l, r);
+		if (n.height != h) return _reportNeg("height of " + n.string + " is " + n.height + " but should be " + h);
+		if (Math.abs(l - r) > 1) return _reportNeg("unbalanced at " + n.string);
+		return h;
+	}
+
+	private static boolean _doReport = true;
+
+	/**
+	 * Used to report an error found when checking the invariant.
+	 * @param error string to print to report the exact error found
+	 * @return false always
+	 */
+	private boolean _report(String error) {
+		if (_doReport) System.out.println("Invariant error found: " + error);
+		return false;
+	}
+
+	private int _reportNeg(String error) {
+		_report(error);
+		return -1;
+	}
+
+	/**
+	 * Creates an empty lexicon ordered by the given collator.
+	 * The collator is copied, so later changes to it (such as its strength)
+	 * do not disturb the order.
+	 * @param collator the collator giving the order, not null
+	 * @throws NullPointerException if collator is null
+	 */
+	public CollatedLexicon(Collator collator) {
+		if (collator == null) throw new NullPointerException("Collator can't be null");
+		_collator = (Collator)collator.clone();
+		assert _wellFormed() : "invariant false at end of constructor";
+	}
+
+	/**
+	 * Gets the collator giving the order of this lexicon.
+	 * @return a copy of the collator
+	 */
+	public Collator getCollator() {
+		return (Collator)_collator.clone();
+	}
+
+	/// Comparison
+
+	private byte[] key(String s) {
+		return _collator.getCollationKey(s).toByteArray();
+	}
+
+	/**
+	 * Compare a string (with its key) to the string at a node.
+	 * @return negative, zero or positive as the string comes before, is, or comes after the node's
+	 */
+	private static int compare(byte[] key, String s, Node n) {
+		int c = Arrays.compareUnsigned(key, n.key);
+		return c != 0 ? c : s.compareTo(n.string);
+	}
+
+	/// Accessors
+
+	/** Gets the size of this lexicon.
+	 * @return the count of strings in this lexicon
+	 */
+	public int size() {
+		assert _wellFormed() : "invariant false at start of size()";
+		return _manyNodes;
+	}
+
+	/**
+	 * Gets the first string in collation order.
+	 * @return the first string or null if empty
+	 */
+	public String getMin() {
+		assert _wellFormed() : "invariant false at start of getMin()";
+		if (_root == null) return null;
+		Node n = _root;
+		while (n.left != null) n = n.left;
+		return n.string;
+	}
+
+	/**
+	 * Checks if the given string is in the lexicon.
+	 * @param str the string to search for (maybe null)
+	 * @return true if str is in the lexicon, false otherwise
+	 */
+	public boolean contains(String str) {
+		assert _wellFormed() : "invariant false at start of contains()";
+		if (str == null) return false;
+		byte[] key = key(str);
+		Node n = _root;
+		while (n != null) {
+			int c = compare(key, str, n);
+			if (c == 0) return true;
+			n = c < 0 ? n.left : n.right;
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the string after the given string in collation order.
+	 * @param str the string of which to find the next
+	 * @return the least string in the lexicon after str, or null if there is none
+	 * @throws NullPointerException if str is null
+	 */
+	public String getNext(String str) {
+		assert _wellFormed() : "invariant false at start of getNext()";
+		if (str == null) throw new NullPointerException("Cannot get next of null");
+		byte[] key = key(str);
+		Node result = null;
+		for (Node n = _root; n != null; ) {
+			if (compare(key, str, n) >= 0) n = n.right;
+			else {
+				result = n;
+				n = n.left;
+			}
+		}
+		return result == null ? null : result.string;
+	}
+
+	/**
+	 * Accept into the consumer all strings in this lexicon, in collation order.
+	 * @param consumer the consumer to accept the strings
+	 * @throws NullPointerException if consumer is null
+	 */
+	public void consumeAll(Consumer<String> consumer) {
+		consumeAllWithPrefix(consumer, "");
+	}
+
+	/**
+	 * Accept into the consumer (in collation order) all strings that start
+	 * with the given prefix.  This takes time linear in the size of the lexicon.
+	 * @param consumer the consumer to accept the strings
+	 * @param prefix the prefix to find all strings starting with
+	 * @throws NullPointerException if consumer or prefix is null
+	 */
+	public void consumeAllWithPrefix(Consumer<String> consumer, String prefix) {
+		assert _wellFormed() : "invariant false at start of consumeAllWithPrefix()";
+		if (consumer == null) throw new NullPointerException("Can't accept into null consumer");
+		if (prefix == null) throw new NullPointerException("Prefix can't be null");
+		Node[] stack = new Node[height(_root)];
+		int depth = 0;
+		for (Node n = _root; n != null || depth > 0; n = n.right) {
+			for (; n != null; n = n.left) stack[depth++] = n;
+			n = stack[--depth];
+			if (n.string.startsWith(prefix)) consumer.accept(n.string);
+		}
+	}
+
+	/**
+	 * Return an array of all the strings in this lexicon (in collation order).
+	 * @param array to use unless null or too small
+	 * @return array copied into
+	 */
+	public String[] toArray(String[] array) {
+		assert _wellFormed() : "invariant false at the start of toArray()";
+		if (array == null || array.length < _manyNodes) array = new String[_manyNodes];
+		int[] i = { 0 };
+		String[] result = array;
+		consumeAll(s -> result[i[0]++] = s);
+		return array;
+	}
+
+	/// Mutators
+
+	/**
+	 * Add a new string to the lexicon. If it already exists, return false.
+	 * @param str string to add, must not be null
+	 * @return true if str was added, false otherwise
+	 * @throws NullPointerException if str is null
+	 */
+	public boolean add(String str) {
+		assert _wellFormed() : "invariant false at start of add()";
+		if (str == null) throw new NullPointerException("cannot add null");
+		int before = _manyNodes;
+		_root = addHelper(_root, str, key(str));
+		assert _wellFormed() : "invariant false at end of add()";
+		return _manyNodes > before;
+	}
+
+	/**
+	 * Add all strings in the array into this lexicon from the range [lo,hi).
+	 * @param array source
+	 * @param lo index lower bound
+	 * @param hi index upper bound
+	 * @return number of strings added
+	 * @throws NullPointerException if array (or any string in the range) is null
+	 */
+	public int addAll(String[] array, int lo, int hi) {
+		assert _wellFormed() : "invariant false at start of addAll()";
+		if (array == null) throw new NullPointerException("Cannot add from null array");
+		int count = 0;
+		for (int i=lo; i < hi; ++i)
+			if (add(array[i])) ++count;
+		assert _wellFormed() : "invariant false at end of addAll()";
+		return count;
+	}
+
+	private Node addHelper(Node n, String str, byte[] key) {
+		if (n == null) {
+			++_manyNodes;
+			return new Node(str, key);
+		}
+		int c = compare(key, str, n);
+		if (c == 0) return n;
+		if (c < 0) n.left = addHelper(n.left, str, key);
+		else n.right = addHelper(n.right, str, key);
+		return rebalance(n);
+	}
+
+	private static int height(Node n) {
+		return n == null ? 0 : n.height;
+	}
+
+	private static Node fix(Node n) {
+		n.height = 1 + Math.max(height(n.left), height(n.right));
+		return n;
+	}
+
+	private static Node rotateRight(Node n) {
+		Node l = n.left;
+		n.left = l.right;
+		l.right = fix(n);
+		return fix(l);
+	}
+
+	private static Node rotateLeft(Node n) {
+		Node r = n.right;
+		n.right = r.left;
+		r.left = fix(n);
+		return fix(r);
+	}
+
+	/**
+	 * Restore the AVL property at a node whose children are balanced
+	 * but may differ in height by two.
+	 * @param n the node to rebalance
+	 * @return the new root of the subtree
+	 */
+	private static Node rebalance(Node n) {
+		fix(n);
+		int balance = height(n.left) - height(n.right);
+		if (balance > 1) {
+			if (height(n.left.left) < height(n.left.right)) n.left = rotateLeft(n.left);
+			return rotateRight(n);
+		}
+		if (balance < -1) {
+			if (height(n.right.right) < height(n.right.left)) n.right = rotateRight(n.right);
+			return rotateLeft(n);
+		}
+		return n;
+	}
+}
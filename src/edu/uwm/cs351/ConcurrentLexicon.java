@@ -0,0 +1,131 @@
+package edu.uwm.cs351;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Thread-safe set of strings, sorted lexicographically.
+ * The strings are kept in a concurrent skip list, so readers
+ * ({@link #contains(String)}, {@link #getNext(String)}, {@link #consumeAllWithPrefix(Consumer, String)})
+ * never lock or block, and writers only contend when they insert next to each other.
+ * <p>
+ * Traversals are weakly consistent: they see every string added before they
+ * started, and may or may not see strings added while they run.  Likewise
+ * {@link #size()} and {@link #toArray(String[])} are exact only when no add is in progress.
+ * The methods otherwise mirror those of {@link Lexicon}.
+ */
+public class ConcurrentLexicon {
+	
+	private final ConcurrentSkipListSet<String> _set = new ConcurrentSkipListSet<>();
+	private final AtomicInteger _manyWords = new AtomicInteger();
+	
+	/**
+	 * Creates an empty lexicon.
+	 */
+	public ConcurrentLexicon() { }
+	
+	/** Gets the size of this lexicon.
+	 * @return the count of strings in this lexicon
+	 */
+	public int size() {
+		return _manyWords.get();
+	}
+	
+	/**
+	 * Gets the [lexicographically] least string in the lexicon.
+	 * @return the least string or null if empty
+	 */
+	public String getMin() {
+		return _set.ceiling("");
+	}
+	
+	/**
+	 * Checks if the given string is in the lexicon.
+	 * @param str the string to search for (maybe null)
+	 * @return true if str is in the lexicon, false otherwise
+	 */
+	public boolean contains(String str) {
+		if (str == null) return false;
+		return _set.contains(str);
+	}
+	
+	/**
+	 * Gets the next [lexicographically] greater string than the given string.
+	 * @param str the string of which to find the next greatest
+	 * @return the next string greater than str
+	 * @throws NullPointerException if str is null
+	 */
+	public String getNext(String str) {
+		if (str == null) throw new NullPointerException("Cannot get next of null");
+		return _set.higher(str);
+	}
+	
+	/**
+	 * Accept into the consumer all strings in this lexicon.
+	 * @param consumer the consumer to accept the strings
+	 * @throws NullPointerException if consumer is null
+	 */
+	public void consumeAll(Consumer<String> consumer) {
+		consumeAllWithPrefix(consumer,"");
+	}
+	
+	/**
+	 * Accept into the consumer all strings that start with the given prefix.
+	 * @param consumer the consumer to accept the strings
+	 * @param prefix the prefix to find all strings starting with
+	 * @throws NullPointerException if consumer or prefix is null
+	 */
+	public void consumeAllWithPrefix(Consumer<String> consumer, String prefix) {
+		if (consumer == null) throw new NullPointerException("Can't accept into null consumer");
+		if (prefix == null) throw new NullPointerException("Prefix can't be null");
+		for (String s : _set.tailSet(prefix)) {
+			if (!s.startsWith(prefix)) break;
+			consumer.accept(s);
+		}
+	}
+	
+	/// Mutators
+	
+	/**
+	 * Add a new string to the lexicon. If it already exists, do nothing and return false.
+	 * @param str the string to add (must not be null)
+	 * @return true if str was added, false otherwise
+	 * @throws NullPointerException if str is null
+	 */
+	public boolean add(String str) {
+		if (str == null) throw new NullPointerException("cannot add null");
+		if (!_set.add(str)) return false;
+		_manyWords.incrementAndGet();
+		return true;
+	}
+	
+	/**
+	 * Add all strings in the array into this lexicon from the range [lo,hi).
+	 * Return number of strings actually added; some might not be added
+	 * if they are duplicates (or added concurrently by another thread).
+	 * @param array source
+	 * @param lo index lower bound
+	 * @param hi index upper bound
+	 * @return number of strings added
+	 * @throws NullPointerException if array is null
+	 */
+	public int addAll(String[] array, int lo, int hi) {
+		if (array == null) throw new NullPointerException("Cannot add from null array");
+		int count = 0;
+		for (int i = lo; i < hi; ++i)
+			if (add(array[i])) ++count;
+		return count;
+	}
+	
+	/**
+	 * Return an array of all the strings in this lexicon (in order).
+	 * @param array to use unless null or too small
+	 * @return array copied into
+	 */
+	public String[] toArray(String[] array) {
+		String[] snapshot = _set.toArray(new String[0]);
+		if (array == null || array.length < snapshot.length) return snapshot;
+		System.arraycopy(snapshot, 0, array, 0, snapshot.length);
+		return array;
+	}
+}
@@ -1,12 +1,12 @@
 package edu.uwm.cs351;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Writer;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
+import java.util.function.Consumer;
 
 /**
  * The driver for Lexicon.
@@ -23,14 +23,27 @@ public class Driver {
 		new Driver(args[0]).run();
 	}
 
+	/** Greatest number of words kept in the cache of find results. */
+	public static final int CACHE_BUDGET = 100000;
+	
+	/** Number of words shown by each page command. */
+	public static final int PAGE_SIZE = 20;
+	
 	private Lexicon lexicon;
+	private PrefixCache cache = new PrefixCache(CACHE_BUDGET);
+	private MappedLexicon index; // non-null if reading from an index file
+	private LexiconJournal journal;
+	private boolean removed; // whether words were removed since the file was last rewritten
+	private String pageEnd; // last word shown by page, or null to start at the beginning
 	private String filename;
 	private Scanner in;
 	
 	/** Instantiates a new driver, loading lexicon from file.
+	 * If the name ends with ".idx", the file is opened as a read-only
+	 * memory-mapped index (see {@link MappedLexicon}).
 	 * @param name the name of the file */
 	public Driver(String name) {
-		lexicon = new Lexicon();
+		lexicon = new Lexicon(true);
 		filename = name;
 		in = new Scanner(System.in);
 	}
@@ -44,8 +57,15 @@ public class Driver {
 			String line = in.nextLine();
 			if (line.equals("list")) list();
 			else if (line.startsWith("find")) find(line);
+			else if (line.startsWith("top")) top(line);
+			else if (line.startsWith("page")) page(line);
 			else if (line.startsWith("add")) add(line);
-			else if (line.equals("save")) writeLexicon();
+			else if (line.startsWith("remove")) remove(line);
+			else if (line.startsWith("prune")) prune(line);
+			else if (line.equals("save")) save();
+			else if (line.equals("compact")) compact();
+			else if (line.equals("index")) writeIndex();
+			else if (line.equals("stats")) stats();
 			else if (line.equals("help")) help();
 			else if (line.equals("quit")) break;
 			else error(line);
@@ -53,12 +73,19 @@ public class Driver {
 	}
 
 	private void help() {
-		System.out.println("Lexicon System.  Words: " + lexicon.size());
+		System.out.println("Lexicon System.  Words: " + (index != null ? index.size() : lexicon.size()));
 		System.out.println("Commands: ");
 		System.out.println("  list - print out entire lexicon");
 		System.out.println("  find <prefix> - show all words that begin with given prefix");
+		System.out.println("  top [<prefix>] <k> - show the k heaviest words (that begin with prefix)");
+		System.out.println("  page [<word>] - show the next " + PAGE_SIZE + " words (after the given word)");
 		System.out.println("  add <word> - add the given word to the lexicon");
-		System.out.println("  save - save the lexicon in the file it was read from.");
+		System.out.println("  remove <word> - remove the given word from the lexicon");
+		System.out.println("  prune <prefix> - remove all words that begin with given prefix");
+		System.out.println("  save - save new words to the journal " + filename + ".journal");
+		System.out.println("  compact - rewrite the lexicon file with all words and empty the journal");
+		System.out.println("  index - write a read-only index of the lexicon to " + filename + ".idx");
+		System.out.println("  stats - show cache, tree shape and (if enabled) operation metrics");
 		System.out.println("  help - get this message");
 		System.out.println("  quit - quite the program without saving");
 	}
@@ -66,50 +93,207 @@ public class Driver {
 	private void error(String line) {System.out.println("Error: cannot understand command, type 'help' for help.");}
 
 	private void list() {
-		lexicon.consumeAll(string -> System.out.println(string));
+		if (index != null) index.consumeAll(string -> System.out.println(string));
+		else lexicon.consumeAll(string -> System.out.println(string));
 	}
 	
 	private void find(String line) {
 		String[] tokens = line.split(" ");
-		if (tokens.length == 2)
-			lexicon.consumeAllWithPrefix(string -> System.out.println(string), tokens[1]);
-		else System.out.println("Prefix must be one word, type 'help' for help.");
+		if (tokens.length != 2) {
+			System.out.println("Prefix must be one word, type 'help' for help.");
+			return;
+		}
+		String prefix = tokens[1];
+		String[] words = cache.get(prefix);
+		if (words == null) {
+			List<String> found = new ArrayList<String>();
+			if (index != null) index.consumeAllWithPrefix(found::add, prefix);
+			else lexicon.consumeAllWithPrefix(found::add, prefix);
+			words = found.toArray(new String[found.size()]);
+			cache.put(prefix, words);
+		}
+		for (String word : words)
+			System.out.println(word);
+	}
+	
+	private void page(String line) {
+		String[] tokens = line.split(" ");
+		if (tokens.length > 2) {
+			System.out.println("Usage: page [<word>], type 'help' for help.");
+			return;
+		}
+		if (tokens.length == 2) pageEnd = tokens[1];
+		String[] last = { pageEnd };
+		int shown;
+		if (index != null) {
+			shown = 0;
+			String word = pageEnd == null ? index.getMin() : index.getNext(pageEnd);
+			for (; word != null && shown < PAGE_SIZE; ++shown) {
+				System.out.println(word);
+				last[0] = word;
+				word = index.getNext(word);
+			}
+		} else {
+			Consumer<String> show = word -> {
+				System.out.println(word);
+				last[0] = word;
+			};
+			if (pageEnd == null) shown = lexicon.consumeRange("", null, PAGE_SIZE, show);
+			else shown = lexicon.consumeAfter(pageEnd, PAGE_SIZE, show);
+		}
+		if (shown < PAGE_SIZE) {
+			System.out.println("(end of lexicon)");
+			pageEnd = null;
+		} else pageEnd = last[0];
+	}
+	
+	private void stats() {
+		System.out.println("find cache: " + cache);
+		if (index != null) return;
+		int[] depths = lexicon.getDepthCounts();
+		long total = 0;
+		for (int d=0; d < depths.length; ++d) total += (long)d * depths[d];
+		System.out.printf("tree height: %d, average depth: %.2f%n", lexicon.getHeight(),
+				lexicon.size() == 0 ? 0.0 : (double)total / lexicon.size());
+		System.out.println("strings at each depth: " + Arrays.toString(depths));
+		if (LexiconMetrics.ENABLED) System.out.println(LexiconMetrics.snapshot());
+		else System.out.println("(run with -Dlexicon.metrics=true to record operation metrics)");
+	}
+	
+	private void top(String line) {
+		String[] tokens = line.split(" ");
+		if (tokens.length < 2 || tokens.length > 3) {
+			System.out.println("Usage: top [<prefix>] <k>, type 'help' for help.");
+			return;
+		}
+		if (index != null) {
+			System.out.println("Index files do not record weights.");
+			return;
+		}
+		try {
+			int k = Integer.parseInt(tokens[tokens.length-1]);
+			lexicon.topKWeighted(tokens.length == 3 ? tokens[1] : "", k,
+					(word, weight) -> System.out.println(word + "\t" + weight));
+		} catch (IllegalArgumentException e) {
+			System.out.println("Count must be a non-negative number, type 'help' for help.");
+		}
+	}
+	
+	private boolean readOnly() {
+		if (index != null) System.out.println("Lexicon was opened from an index and is read-only.");
+		return index != null;
 	}
 	
 	private void add(String line) {
 		String[] tokens = line.split(" ");
+		if (readOnly()) return;
 		if (tokens.length == 2) {
 			String word = tokens[1];
-			System.out.println(lexicon.add(word)
-					? word+" added."
-					: word+" already exists in lexicon.");
+			if (lexicon.add(word)) {
+				cache.invalidate(word);
+				journal.add(word, 0);
+				System.out.println(word+" added.");
+			}
+			else System.out.println(word+" already exists in lexicon.");
+		}
+		else System.out.println("Invalid command, type 'help' for help.");
+	}
+	
+	private void remove(String line) {
+		String[] tokens = line.split(" ");
+		if (readOnly()) return;
+		if (tokens.length == 2) {
+			String word = tokens[1];
+			if (lexicon.remove(word)) {
+				cache.invalidate(word);
+				removed = true;
+				System.out.println(word+" removed.");
+			}
+			else System.out.println(word+" is not in lexicon.");
 		}
 		else System.out.println("Invalid command, type 'help' for help.");
 	}
 	
+	private void prune(String line) {
+		String[] tokens = line.split(" ");
+		if (readOnly()) return;
+		if (tokens.length == 2) {
+			int count = lexicon.removeWithPrefix(tokens[1]);
+			if (count > 0) {
+				cache.clear();
+				removed = true;
+			}
+			System.out.println(count + " words removed.");
+		}
+		else System.out.println("Prefix must be one word, type 'help' for help.");
+	}
+	
 	private void readLexicon() {
-		List<String> words = new ArrayList<String>();
-		try (Scanner s = new Scanner(new File(filename))){
-			while (s.hasNextLine())
-					words.add(s.nextLine());
-		} catch (FileNotFoundException e) {
+		if (filename.endsWith(".idx")) {
+			try {
+				index = MappedLexicon.open(Paths.get(filename));
+				return;
+			} catch (IOException e) {
+				System.out.println("Could not open index " + filename + ": " + e);
+				System.exit(1);
+			}
+		}
+		long start = System.nanoTime();
+		try {
+			int added = LexiconLoader.load(Paths.get(filename), lexicon, System.out::println);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			System.out.printf("Loaded %d words in %.3f s (%.0f words/sec)%n", added, seconds, added / Math.max(seconds, 1e-9));
+		} catch (NoSuchFileException e) {
 			System.out.println("Could not open " + filename + " for reading.  Skipping.");
+		} catch (IOException e) {
+			System.out.println("Could not read " + filename + ": " + e);
+			System.exit(1);
+		}
+		journal = new LexiconJournal(Paths.get(filename + ".journal"));
+		try {
+			int entries = journal.replay(lexicon);
+			if (entries > 0) System.out.println("Replayed " + entries + " journal entries from " + journal.getPath());
+		} catch (IOException e) {
+			System.out.println("Could not replay journal " + journal.getPath() + ": " + e);
+			System.exit(1);
 		}
-		lexicon.addAll(words.toArray(new String[words.size()]), 0, words.size());
 	}
 	
-	private void writeLexicon() {
-		String[] words = lexicon.toArray(null);
+	private void save() {
+		if (readOnly()) return;
+		if (removed) {
+			// the journal only records additions
+			System.out.println("Words were removed, so the whole file must be rewritten.");
+			compact();
+			return;
+		}
 		try {
-			Writer w = new FileWriter(filename);
-			for (String l : words) {
-				w.write(l.toString());
-				w.write('\n');
-			}
-			w.close();
+			int count = journal.commit();
+			System.out.println(count == 0 ? "Nothing new to save." : count + " new words saved to " + journal.getPath());
+		} catch (IOException e) {
+			System.out.println("Problem: words not saved: " + e);
+		}
+	}
+	
+	private void compact() {
+		if (readOnly()) return;
+		try {
+			journal.compact(Paths.get(filename), lexicon);
+			removed = false;
 			System.out.println("Lexicon successfully written");
 		} catch (IOException e) {
-			System.out.println("Problem: file may be partly written: " + e);
+			System.out.println("Problem: lexicon file unchanged: " + e);
+		}
+	}
+	
+	private void writeIndex() {
+		if (readOnly()) return;
+		String[] words = lexicon.toArray(null);
+		try {
+			MappedLexicon.write(Paths.get(filename + ".idx"), words, words.length);
+			System.out.println("Index written to " + filename + ".idx");
+		} catch (IOException e) {
+			System.out.println("Problem writing index: " + e);
 		}
 	}
 }
@@ -0,0 +1,333 @@
+package edu.uwm.cs351;
+import java.util.function.Consumer;
+
+/**
+ * Immutable set of strings, sorted lexicographically, stored compactly with front coding.
+ * The strings are grouped in blocks of {@link #BLOCK} consecutive strings.  The first
+ * string of each block is stored whole; every later one is stored as the length of the
+ * prefix it shares with the string before it, followed by the rest of its characters.
+ * All of this lives in a single char array, with a second array locating each block,
+ * so a frozen lexicon costs a few bytes per string rather than a node and a string object.
+ * <p>
+ * Lookups binary search the block heads and then decode at most one block.
+ * Create one with {@link Lexicon#freeze()}.
+ */
+public class FrozenLexicon {
+
+	/** Number of strings in each front-coded block. */
+	public static final int BLOCK = 16;
+
+	private final char[] _data;
+	private final int[] _blockStart;
+	private final int _manyWords;
+	private final int _maxLength;
+
+	/**
+	 * Check the invariant: every block starts where the previous one ended,
+	 * and decoding yields exactly _manyWords strings in strictly increasing order.
+	 * Returns false if any problem is found.  It uses
+	 * {@link #_report(String)} to report any problem.
+	 * @return whether invariant is currently true.
+	 */
+	private boolean _wellFormed() {
+		if (_data == null || _blockStart == null) return _report("null arrays");
+		if (_blockStart.length != (_manyWords + BLOCK - 1) / BLOCK)
+			return _report("wrong number of blocks: " + _blockStart.length);
+		Reader r = new Reader();
+		String prev = null;
+		for (int i=0; i < _manyWords; ++i) {
+			if (i % BLOCK == 0 && r.pos != _blockStart[i / BLOCK])
+				return _report("block " + i / BLOCK + " starts at " + _blockStart[i / BLOCK] + " but should start at " + r.pos);
+			r.next();
+			String s = r.toString();
+			if (prev != null && prev.compareTo(s) >= 0) return _report("out of order: " + prev + ", " + s);
+			prev = s;
+		}
+		if (r.pos != _data.length) return _report("extra data after last string");
+		return true;
+	}
+
+	private static boolean _doReport = true;
+
+	/**
+	 * Used to report an error found when checking the invariant.
+	 * @param error string to print to report the exact error found
+	 * @return false always
+	 */
+	private boolean _report(String error) {
+		if (_doReport) System.out.println("Invariant error found: " + error);
+		return false;
+	}
+
+	/**
+	 * Freeze the given strings.
+	 * @param sorted strings in strictly increasing order, none null
+	 * @param count number of strings to use from the front of the array
+	 * @throws IllegalArgumentException if the strings are not strictly increasing
+	 */
+	FrozenLexicon(String[] sorted, int count) {
+		int length = 0, max = 0, blocks = (count + BLOCK - 1) / BLOCK;
+		for (int i=0; i < count; ++i) {
+			String s = sorted[i];
+			if (i > 0 && sorted[i-1].compareTo(s) >= 0)
+				throw new IllegalArgumentException("strings not in increasing order: " + sorted[i-1] + ", " + s);
+			int shared = i % BLOCK == 0 ? 0 : commonPrefix(sorted[i-1], s);
+			if (i % BLOCK != 0) length += intLength(shared);
+			length += intLength(s.length() - shared) + s.length() - shared;
+			max = Math.max(max, s.length());
+		}
+
+		_data = new char[length];
+		_blockStart = new int[blocks];
+		_manyWords = count;
+		_maxLength = max;
+		int pos = 0;
+		for (int i=0; i < count; ++i) {
+			String s = sorted[i];
+			int shared = 0;
+			if (i % BLOCK == 0) _blockStart[i / BLOCK] = pos;
+			else {
+				shared = commonPrefix(sorted[i-1], s);
+				pos = writeInt(shared, pos);
+			}
+			pos = writeInt(s.length() - shared, pos);
+			s.getChars(shared, s.length(), _data, pos);
+			pos += s.length() - shared;
+		}
+		assert _wellFormed() : "invariant false at end of constructor";
+	}
+
+	private static int commonPrefix(String a, String b) {
+		int max = Math.min(a.length(), b.length());
+		int k = 0;
+		while (k < max && a.charAt(k) == b.charAt(k)) ++k;
+		return k;
+	}
+
+	// Lengths are stored in one char when less than 2^15, otherwise in two.
+
+	private static int intLength(int v) {
+		return v < 0x8000 ? 1 : 2;
+	}
+
+	private int writeInt(int v, int pos) {
+		if (v >= 0x8000) _data[pos++] = (char)(0x8000 | (v >>> 15));
+		_data[pos++] = (char)(v & 0x7FFF);
+		return pos;
+	}
+
+	/**
+	 * A position in the encoded data, with the string decoded there.
+	 */
+	private class Reader {
+		final char[] word = new char[_maxLength];
+		int length;
+		int pos;
+		int index = -1; // index of the string in word
+
+		/** Position this reader just before the first string of the block. */
+		void seek(int block) {
+			pos = _blockStart[block];
+			index = block * BLOCK - 1;
+		}
+
+		/** Decode the next string, returning false if there are no more. */
+		boolean next() {
+			if (index + 1 >= _manyWords) return false;
+			++index;
+			int shared = index % BLOCK == 0 ? 0 : readInt();
+			int suffix = readInt();
+			System.arraycopy(_data, pos, word, shared, suffix);
+			pos += suffix;
+			length = shared + suffix;
+			return true;
+		}
+
+		private int readInt() {
+			int v = _data[pos++];
+			if (v >= 0x8000) v = ((v & 0x7FFF) << 15) | _data[pos++];
+			return v;
+		}
+
+		int compareTo(String s) {
+			int n = Math.min(length, s.length());
+			for (int i=0; i < n; ++i) {
+				int c = word[i] - s.charAt(i);
+				if (c != 0) return c;
+			}
+			return length - s.length();
+		}
+
+		boolean startsWith(String prefix) {
+			if (length < prefix.length()) return false;
+			for (int i=0; i < prefix.length(); ++i)
+				if (word[i] != prefix.charAt(i)) return false;
+			return true;
+		}
+
+		@Override
+		public String toString() {
+			return new String(word, 0, length);
+		}
+	}
+
+	/**
+	 * Compare the first string of the block with the given string.
+	 * @param block block index
+	 * @param s string to compare with
+	 * @return negative, zero or positive as the head is less, equal or greater than s
+	 */
+	private int compareHead(int block, String s) {
+		int pos = _blockStart[block];
+		int length = _data[pos++];
+		if (length >= 0x8000) length = ((length & 0x7FFF) << 15) | _data[pos++];
+		int n = Math.min(length, s.length());
+		for (int i=0; i < n; ++i) {
+			int c = _data[pos + i] - s.charAt(i);
+			if (c != 0) return c;
+		}
+		return length - s.length();
+	}
+
+	/**
+	 * Find the last block whose first string is at most the given string.
+	 * @param s string to search for
+	 * @param inclusive whether a head equal to s counts
+	 * @return index of the block, or -1 if every head is greater
+	 */
+	private int findBlock(String s, boolean inclusive) {
+		int lo = 0, hi = _blockStart.length;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			int c = compareHead(mid, s);
+			if (c < 0 || inclusive && c == 0) lo = mid + 1;
+			else hi = mid;
+		}
+		return lo - 1;
+	}
+
+	/** Gets the size of this lexicon.
+	 * @return the count of strings in this lexicon
+	 */
+	public int size() {
+		assert _wellFormed() : "invariant false at start of size()";
+		return _manyWords;
+	}
+
+	/**
+	 * Gets the [lexicographically] least string in the lexicon.
+	 * @return the least string or null if empty
+	 */
+	public String getMin() {
+		assert _wellFormed() : "invariant false at start of getMin()";
+		if (_manyWords == 0) return null;
+		Reader r = new Reader();
+		r.next();
+		return r.toString();
+	}
+
+	/**
+	 * Checks if the given string is in the lexicon.
+	 * @param str the string to search for (maybe null)
+	 * @return true if str is in the lexicon, false otherwise
+	 */
+	public boolean contains(String str) {
+		assert _wellFormed() : "invariant false at start of contains()";
+		if (str == null) return false;
+
+		int b = findBlock(str, true);
+		if (b < 0) return false;
+		Reader r = new Reader();
+		r.seek(b);
+		for (int i=0; i < BLOCK && r.next(); ++i) {
+			int c = r.compareTo(str);
+			if (c == 0) return true;
+			if (c > 0) return false;
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the next [lexicographically] greater string than the given string.
+	 * @param str the string of which to find the next greatest
+	 * @return the next string greater than str
+	 * @throws NullPointerException if str is null
+	 */
+	public String getNext(String str) {
+		assert _wellFormed() : "invariant false at start of getNext()";
+		if (str == null) throw new NullPointerException("Cannot get next of null");
+
+		Reader r = new Reader();
+		int b = findBlock(str, true);
+		if (b >= 0) r.seek(b);
+		while (r.next())
+			if (r.compareTo(str) > 0) return r.toString();
+		return null;
+	}
+
+	/**
+	 * Accept into the consumer all strings in this lexicon.
+	 * @param consumer the consumer to accept the strings
+	 * @throws NullPointerException if consumer is null
+	 */
+	public void consumeAll(Consumer<String> consumer) {
+		consumeAllWithPrefix(consumer,"");
+	}
+
+	/**
+	 * Accept into the consumer all strings that start with the given prefix.
+	 * @param consumer the consumer to accept the strings
+	 * @param prefix the prefix to find all strings starting with
+	 * @throws NullPointerException if consumer or prefix is null
+	 */
+	public void consumeAllWithPrefix(Consumer<String> consumer, String prefix) {
+		assert _wellFormed() : "invariant false at start of consumeAllWithPrefix()";
+		if (consumer == null) throw new NullPointerException("Can't accept into null consumer");
+		if (prefix == null) throw new NullPointerException("Prefix can't be null");
+
+		Reader r = new Reader();
+		int b = findBlock(prefix, false);
+		if (b >= 0) r.seek(b);
+		while (r.next()) {
+			if (r.startsWith(prefix)) consumer.accept(r.toString());
+			else if (r.compareTo(prefix) > 0) break;
+		}
+	}
+
+	/**
+	 * Return an array of all the strings in this lexicon (in order).
+	 * @param array to use unless null or too small
+	 * @return array copied into
+	 */
+	public String[] toArray(String[] array) {
+		assert _wellFormed() : "invariant false at the start of toArray()";
+
+		if (array == null || array.length < _manyWords) array = new String[_manyWords];
+		Reader r = new Reader();
+		for (int i=0; r.next(); ++i)
+			array[i] = r.toString();
+
+		return array;
+	}
+
+	/**
+	 * Create a (mutable) lexicon holding the same strings.
+	 * @param balanced whether the new lexicon should be balanced
+	 * @return a new lexicon with all these strings
+	 */
+	public Lexicon thaw(boolean balanced) {
+		String[] words = toArray(null);
+		Lexicon result = new Lexicon(balanced);
+		result.addAll(words, 0, words.length);
+		return result;
+	}
+
+	/**
+	 * Gets the number of chars used to store the strings, for comparing
+	 * against the size of the strings themselves.
+	 * @return the length of the encoded data
+	 */
+	public int dataLength() {
+		return _data.length;
+	}
+}
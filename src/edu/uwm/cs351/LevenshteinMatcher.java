@@ -0,0 +1,52 @@
+package edu.uwm.cs351;
+import java.util.Arrays;
+
+/**
+ * Matches strings within a given edit (Levenshtein) distance of a word.
+ * This simulates the Levenshtein automaton for the word: the state after
+ * reading a prefix is one row of the edit-distance table, the distances
+ * from that prefix to every prefix of the word.  When every entry of a row
+ * exceeds the limit, no extension of the prefix can be close enough.
+ */
+class LevenshteinMatcher extends PrefixMatcher {
+	
+	private final String word;
+	private final int maxEdits;
+	private int[][] rows; // rows[d] is the state after reading d characters
+	
+	/**
+	 * Create a matcher for strings within maxEdits of word.
+	 * @param word the word to match near, not null
+	 * @param maxEdits the greatest number of insertions, deletions and substitutions allowed
+	 */
+	LevenshteinMatcher(String word, int maxEdits) {
+		this.word = word;
+		this.maxEdits = maxEdits;
+		rows = new int[word.length() + 2][];
+		rows[0] = new int[word.length() + 1];
+		for (int j=0; j <= word.length(); ++j)
+			rows[0][j] = j;
+	}
+	
+	@Override
+	boolean step(int depth, char c) {
+		if (depth + 1 == rows.length) rows = Arrays.copyOf(rows, rows.length * 2);
+		int[] prev = rows[depth];
+		int[] row = rows[depth + 1];
+		if (row == null) row = rows[depth + 1] = new int[word.length() + 1];
+		
+		row[0] = depth + 1;
+		int min = row[0];
+		for (int j=1; j <= word.length(); ++j) {
+			int cost = word.charAt(j-1) == c ? 0 : 1;
+			row[j] = Math.min(Math.min(prev[j] + 1, row[j-1] + 1), prev[j-1] + cost);
+			min = Math.min(min, row[j]);
+		}
+		return min <= maxEdits;
+	}
+	
+	@Override
+	boolean accepts(int depth) {
+		return rows[depth][word.length()] <= maxEdits;
+	}
+}
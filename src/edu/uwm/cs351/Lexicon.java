@@ -1,5 +1,16 @@
 package edu.uwm.cs351;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import edu.uwm.cs.junit.LockedTestCase;
 
@@ -11,22 +22,52 @@ public class Lexicon {
 	private static class Node {
 		String string;
 		Node left, right;
+		int height = 1;
+		int size = 1;
+		long weight, maxWeight; // maxWeight is the greatest weight in the subtree
 		Node (String s) { string = s; }
 	}
 	
+	/**
+	 * Whether assertions check the invariant by sampling, so that they are cheap
+	 * enough to leave on: set by starting the JVM with <code>-Dlexicon.check=sampled</code>.
+	 * Otherwise every check examines the whole tree, which makes each operation
+	 * take linear time when assertions are enabled.
+	 */
+	public static final boolean SAMPLED_CHECKS = "sampled".equals(System.getProperty("lexicon.check"));
+	
 	private Node _root;
 	private int _manyNodes;
+	private final boolean _balanced;
+	private boolean _sampleChecks = SAMPLED_CHECKS;
+	private int _checksSinceFull; // sampled checks since the whole tree was checked
+	private int _modCount; // changes to the set of strings, for cursors
 	
 	/**
 	 * Check the invariant.  
 	 * Returns false if any problem is found.  It uses
 	 * {@link #_report(String)} to report any problem.
+	 * If checks are sampled (see {@link #SAMPLED_CHECKS}), only one path is checked,
+	 * except that the whole tree is checked once there have been as many
+	 * checks since the last full check as there are strings, so that
+	 * checking costs amortized logarithmic time in a balanced tree.
 	 * @return whether invariant is currently true.
 	 */
 	private boolean _wellFormed() {
+		if (_sampleChecks && ++_checksSinceFull < _manyNodes) return _checkSample();
+		_checksSinceFull = 0;
+		return _checkAll();
+	}
+	
+	/**
+	 * Check the invariant over the whole tree.
+	 * @return whether invariant is currently true.
+	 */
+	private boolean _checkAll() {
 		int n = _checkInRange(_root, null, null);
 		if (n < 0) return false; // problem already reported
 		if (n != _manyNodes) return _report("_manyNodes is " + _manyNodes + " but should be " + n);
+		if (_checkHeights(_root) < 0) return false; // problem already reported
 		return true;
 	}
 	
@@ -49,7 +90,8 @@ public class Lexicon {
 	
 	/**
 	 * Check that all strings in the subtree are in the parameter range,
-	 * and none of them are null.
+	 * none of them are null, and every node records the size of its subtree
+	 * and the greatest weight in its subtree.
 	 * Report any errors.  If there is an error return a negative number.
 	 * (Write "return _reportNeg(...);" when detecting a problem.)
 	 * Otherwise return the number of nodes in the subtree.
@@ -78,18 +120,110 @@ public class Lexicon {
 		
 		if(leftSubtree < 0 || rightSubtree < 0) return -1;
 		
+		if(n.size != 1 + leftSubtree + rightSubtree)
+			return _reportNeg("Size of " + n.string + " is " + n.size + " but should be " + (1 + leftSubtree + rightSubtree));
+		
+		long max = Math.max(n.weight, Math.max(maxWeight(n.left), maxWeight(n.right)));
+		if(n.maxWeight != max)
+			return _reportNeg("Maximum weight under " + n.string + " is " + n.maxWeight + " but should be " + max);
+		
 		return 1 + leftSubtree + rightSubtree;
 	}
 	
+	/**
+	 * Check that every node in the subtree has its height recorded correctly
+	 * and, if this lexicon is balanced, that the heights of its two children
+	 * differ by at most one.
+	 * This should only be called on a subtree that has already passed
+	 * {@link #_checkInRange(Node, String, String)}, so it need not worry about cycles.
+	 * Report any errors.  If there is an error return a negative number.
+	 * @param n the root of the subtree to check
+	 * @return height of the subtree
+	 */
+	private int _checkHeights(Node n) {
+		if(n == null) return 0;
+		
+		int leftHeight = _checkHeights(n.left);
+		int rightHeight = _checkHeights(n.right);
+		if(leftHeight < 0 || rightHeight < 0) return -1;
+		
+		int h = 1 + Math.max(leftHeight, rightHeight);
+		if(n.height != h)
+			return _reportNeg("Height of " + n.string + " is " + n.height + " but should be " + h);
+		if(_balanced && Math.abs(leftHeight - rightHeight) > 1)
+			return _reportNeg("Detected unbalanced node: " + n.string);
+		
+		return h;
+	}
+	
+	/**
+	 * Check the invariant in constant time plus the length of one random
+	 * path from the root: the count must be the size of the root, and each
+	 * node on the path must be in the range its ancestors allow, and
+	 * agree with its children about size, height, greatest weight
+	 * and (if balanced) balance.  A problem off the path is not found.
+	 * @return whether no problem was found
+	 */
+	private boolean _checkSample() {
+		if (size(_root) != _manyNodes) return _report("_manyNodes is " + _manyNodes + " but root has size " + size(_root));
+		String lo = null, hi = null;
+		int length = 0;
+		for (Node n = _root; n != null; ) {
+			if (++length > _manyNodes) return _report("path from root is longer than " + _manyNodes + " nodes");
+			if (n.string == null) return _report("null word found");
+			if (lo != null && n.string.compareTo(lo) <= 0)
+				return _report("Detected node outside of lower bound: " + n.string);
+			if (hi != null && n.string.compareTo(hi) >= 0)
+				return _report("Detected node outside of upper bound: " + n.string);
+			if (n.size != 1 + size(n.left) + size(n.right))
+				return _report("Size of " + n.string + " is " + n.size + " but should be " + (1 + size(n.left) + size(n.right)));
+			int h = 1 + Math.max(height(n.left), height(n.right));
+			if (n.height != h) return _report("Height of " + n.string + " is " + n.height + " but should be " + h);
+			if (_balanced && Math.abs(height(n.left) - height(n.right)) > 1)
+				return _report("Detected unbalanced node: " + n.string);
+			long max = Math.max(n.weight, Math.max(maxWeight(n.left), maxWeight(n.right)));
+			if (n.maxWeight != max)
+				return _report("Maximum weight under " + n.string + " is " + n.maxWeight + " but should be " + max);
+			
+			boolean goLeft = n.right == null || n.left != null && ThreadLocalRandom.current().nextBoolean();
+			if (goLeft) {
+				hi = n.string;
+				n = n.left;
+			} else {
+				lo = n.string;
+				n = n.right;
+			}
+		}
+		return true;
+	}
+	
 	/**
 	 * Creates an empty lexicon.
 	 */
 	public Lexicon() {
+		this(false);
+	}
+	
+	/**
+	 * Creates an empty lexicon, optionally self-balancing.
+	 * A balanced lexicon keeps its tree an AVL tree, so that its height
+	 * is logarithmic in its size whatever order strings are added in.
+	 * @param balanced whether the tree should rebalance itself on every change
+	 */
+	public Lexicon(boolean balanced) {
 		_root = null;
 		_manyNodes = 0;
+		_balanced = balanced;
 		assert _wellFormed() : "invariant false at end of constructor";
 	}
 	
+	/** Gets whether this lexicon keeps its tree balanced.
+	 * @return true if this lexicon was created balanced
+	 */
+	public boolean isBalanced() {
+		return _balanced;
+	}
+	
 
 	/** Gets the size of this lexicon.
 	 * @return the count of strings in this lexicon
@@ -99,6 +233,38 @@ public class Lexicon {
 		return _manyNodes;
 	}
 	
+	/**
+	 * Gets the height of the tree: the number of nodes on the longest
+	 * path from the root, and so the most nodes any lookup visits.
+	 * @return the height, or zero if empty
+	 */
+	public int getHeight() {
+		assert _wellFormed() : "invariant false at start of getHeight()";
+		return height(_root);
+	}
+	
+	/**
+	 * Count the nodes at each depth of the tree.  This visits every node.
+	 * @return array whose element d is the number of strings d steps below the root;
+	 * 		its length is the height of the tree
+	 */
+	public int[] getDepthCounts() {
+		assert _wellFormed() : "invariant false at start of getDepthCounts()";
+		int[] counts = new int[height(_root)];
+		ArrayDeque<Node> level = new ArrayDeque<>();
+		if (_root != null) level.add(_root);
+		for (int d=0; !level.isEmpty(); ++d) {
+			if (d == counts.length) counts = Arrays.copyOf(counts, d + 1);
+			counts[d] = level.size();
+			for (int i=counts[d]; i > 0; --i) {
+				Node n = level.remove();
+				if (n.left != null) level.add(n.left);
+				if (n.right != null) level.add(n.right);
+			}
+		}
+		return counts;
+	}
+	
 	/**
 	 * Gets the [lexicographically] least string in the lexicon.
 	 * @return the least string or null if empty
@@ -124,18 +290,30 @@ public class Lexicon {
 		
 		if(str == null) return false;
 		
+		long start = LexiconMetrics.start();
+		int visited = 0;
+		long compared = 0;
+		boolean found = false;
 		Node node = _root;
 		while(node != null) {
+			if(LexiconMetrics.ENABLED) {
+				++visited;
+				compared += LexiconMetrics.comparedLength(str, node.string);
+			}
 			int c = str.compareTo(node.string);
 			
-			if(c == 0) return true;
+			if(c == 0) {
+				found = true;
+				break;
+			}
 			else if(c < 0)
 				node = node.left;
 			else
 				node = node.right;
 		}
 		
-		return false;
+		LexiconMetrics.record(LexiconMetrics.Op.CONTAINS, start, visited, compared, found ? 1 : 0);
+		return found;
 	}
 	
 	/**
@@ -150,19 +328,413 @@ public class Lexicon {
 		
 		if(str == null) throw new NullPointerException("Cannot get next of null");
 		
+		long start = LexiconMetrics.start();
+		int visited = 0;
+		long compared = 0;
 		Node n = _root;
 		String result = null;
 		while(n != null) {
+			if(LexiconMetrics.ENABLED) {
+				++visited;
+				compared += LexiconMetrics.comparedLength(str, n.string);
+			}
 			if(n.string.compareTo(str) <= 0)
 				n = n.right;
-			else
+			else {
 				result = n.string;
 				n = n.left;
+			}
 		}
 		
+		LexiconMetrics.record(LexiconMetrics.Op.GET_NEXT, start, visited, compared, result == null ? 0 : 1);
 		return result;
 	}
 	
+	/**
+	 * Check many strings at once: out[i] is set to whether queries[i] is in the lexicon.
+	 * The queries are sorted (unless they already are) and answered in one descent
+	 * of the tree, splitting them at each node between its subtrees, so the path
+	 * shared by neighbouring queries is only walked once.
+	 * @param queries the strings to search for (any may be null)
+	 * @param out array for the answers, at least as long as queries
+	 * @throws NullPointerException if either array is null
+	 * @throws IllegalArgumentException if out is too short
+	 */
+	public void containsAll(String[] queries, boolean[] out) {
+		assert _wellFormed() : "invariant false at start of containsAll()";
+		if (queries == null || out == null) throw new NullPointerException("Arrays can't be null");
+		if (out.length < queries.length) throw new IllegalArgumentException("Answer array too short: " + out.length);
+		int[] order = sortedOrder(queries);
+		for (int i=0; i < queries.length; ++i) out[i] = false;
+		containsAllHelper(queries, order, out);
+	}
+	
+	/**
+	 * Answer the sorted queries in one descent.  The subtrees still to visit,
+	 * each with its range [from,to) of the order, are kept on an explicit stack
+	 * (never more than the height of the tree), so a degenerate tree cannot
+	 * overflow the call stack.
+	 */
+	private void containsAllHelper(String[] queries, int[] order, boolean[] out) {
+		int size = height(_root) + 1;
+		Node[] nodes = new Node[size];
+		int[] froms = new int[size], tos = new int[size];
+		int depth = 0;
+		if (_root != null && order.length > 0) {
+			nodes[0] = _root;
+			tos[0] = order.length;
+			depth = 1;
+		}
+		while (depth > 0) {
+			--depth;
+			Node n = nodes[depth];
+			int from = froms[depth], to = tos[depth];
+			int lo = search(queries, order, from, to, n.string, false);
+			int hi = search(queries, order, lo, to, n.string, true);
+			for (int i=lo; i < hi; ++i) out[order[i]] = true;
+			if (n.right != null && hi < to) {
+				nodes[depth] = n.right;
+				froms[depth] = hi;
+				tos[depth++] = to;
+			}
+			if (n.left != null && from < lo) {
+				nodes[depth] = n.left;
+				froms[depth] = from;
+				tos[depth++] = lo;
+			}
+		}
+	}
+	
+	/**
+	 * Find the next string for many strings at once: out[i] is set to getNext(queries[i]).
+	 * The queries are answered in one shared descent, as with {@link #containsAll}.
+	 * @param queries the strings of which to find the next greatest, none null
+	 * @param out array for the answers, at least as long as queries
+	 * @throws NullPointerException if either array or any query is null
+	 * @throws IllegalArgumentException if out is too short
+	 */
+	public void getNextAll(String[] queries, String[] out) {
+		assert _wellFormed() : "invariant false at start of getNextAll()";
+		if (queries == null || out == null) throw new NullPointerException("Arrays can't be null");
+		if (out.length < queries.length) throw new IllegalArgumentException("Answer array too short: " + out.length);
+		for (String q : queries)
+			if (q == null) throw new NullPointerException("Cannot get next of null");
+		getNextAllHelper(queries, sortedOrder(queries), out);
+	}
+	
+	/**
+	 * Answer the sorted queries in one descent, keeping the subtrees still to
+	 * visit on an explicit stack as {@link #containsAllHelper} does.  Each
+	 * subtree is paired with its range [from,to) of the order and with
+	 * the least string greater than every string in it (or null), which
+	 * is the answer for queries that fall off the bottom of the subtree.
+	 */
+	private void getNextAllHelper(String[] queries, int[] order, String[] out) {
+		int size = height(_root) + 1;
+		Node[] nodes = new Node[size];
+		String[] nexts = new String[size];
+		int[] froms = new int[size], tos = new int[size];
+		int depth = 0;
+		if (_root == null) {
+			for (int i=0; i < order.length; ++i) out[order[i]] = null;
+		} else if (order.length > 0) {
+			nodes[0] = _root;
+			tos[0] = order.length;
+			depth = 1;
+		}
+		while (depth > 0) {
+			--depth;
+			Node n = nodes[depth];
+			String next = nexts[depth];
+			int from = froms[depth], to = tos[depth];
+			int mid = search(queries, order, from, to, n.string, false);
+			if (mid < to) {
+				if (n.right == null) for (int i=mid; i < to; ++i) out[order[i]] = next;
+				else {
+					nodes[depth] = n.right;
+					nexts[depth] = next;
+					froms[depth] = mid;
+					tos[depth++] = to;
+				}
+			}
+			if (from < mid) {
+				if (n.left == null) for (int i=from; i < mid; ++i) out[order[i]] = n.string;
+				else {
+					nodes[depth] = n.left;
+					nexts[depth] = n.string;
+					froms[depth] = from;
+					tos[depth++] = mid;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Gets the indices of the non-null queries in order of the strings there.
+	 * @param queries strings to order
+	 * @return indices of the non-null strings, ordered by the strings
+	 */
+	private static int[] sortedOrder(String[] queries) {
+		int[] order = new int[queries.length];
+		int count = 0;
+		boolean sorted = true;
+		for (int i=0; i < queries.length; ++i) {
+			if (queries[i] == null) continue;
+			if (count > 0 && queries[order[count-1]].compareTo(queries[i]) > 0) sorted = false;
+			order[count++] = i;
+		}
+		if (count < order.length) order = Arrays.copyOf(order, count);
+		if (sorted) return order;
+		
+		Integer[] boxed = new Integer[count];
+		for (int i=0; i < count; ++i) boxed[i] = order[i];
+		Arrays.sort(boxed, (i, j) -> queries[i].compareTo(queries[j]));
+		for (int i=0; i < count; ++i) order[i] = boxed[i];
+		return order;
+	}
+	
+	/**
+	 * Find where a string belongs among sorted queries.
+	 * @param queries the query strings
+	 * @param order indices of the queries in increasing order
+	 * @param from first position of order to search
+	 * @param to position after the last to search
+	 * @param s string to search for
+	 * @param inclusive whether a query equal to s counts as less
+	 * @return first position in [from,to) whose query is greater than (or, if not inclusive, equal to) s
+	 */
+	private static int search(String[] queries, int[] order, int from, int to, String s, boolean inclusive) {
+		while (from < to) {
+			int mid = (from + to) >>> 1;
+			int c = queries[order[mid]].compareTo(s);
+			if (c < 0 || inclusive && c == 0) from = mid + 1;
+			else to = mid;
+		}
+		return from;
+	}
+	
+	/**
+	 * Count the strings in the lexicon that are [lexicographically] less than the given string.
+	 * @param str the string to rank
+	 * @return the number of strings less than str, which is
+	 * 		the index str has (or would have) in {@link #toArray(String[])}
+	 * @throws NullPointerException if str is null
+	 */
+	public int rank(String str) {
+		assert _wellFormed() : "invariant false at start of rank()";
+		if(str == null) throw new NullPointerException("Cannot rank null");
+		
+		int result = 0;
+		Node n = _root;
+		while(n != null) {
+			int c = str.compareTo(n.string);
+			if(c == 0) return result + size(n.left);
+			if(c < 0) n = n.left;
+			else {
+				result += size(n.left) + 1;
+				n = n.right;
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Gets the string with the given index in the [lexicographic] order.
+	 * @param k index of the string, from 0 (the least) to size()-1 (the greatest)
+	 * @return the k-th least string
+	 * @throws IndexOutOfBoundsException if k is negative or not less than size()
+	 */
+	public String select(int k) {
+		assert _wellFormed() : "invariant false at start of select()";
+		if(k < 0 || k >= _manyNodes) throw new IndexOutOfBoundsException("No string at index " + k);
+		
+		Node n = _root;
+		for(;;) {
+			int leftSize = size(n.left);
+			if(k == leftSize) return n.string;
+			if(k < leftSize) n = n.left;
+			else {
+				k -= leftSize + 1;
+				n = n.right;
+			}
+		}
+	}
+	
+	/**
+	 * Count the strings in the lexicon that lie in the range [lo,hi).
+	 * @param lo the least string of the range
+	 * @param hi the first string past the range
+	 * @return number of strings s with lo &lt;= s &lt; hi
+	 * @throws NullPointerException if lo or hi is null
+	 */
+	public int countRange(String lo, String hi) {
+		if(lo == null || hi == null) throw new NullPointerException("Range bounds can't be null");
+		if(lo.compareTo(hi) >= 0) return 0;
+		return rank(hi) - rank(lo);
+	}
+	
+	/**
+	 * Count the strings in the lexicon that start with the given prefix.
+	 * @param prefix the prefix to count strings starting with
+	 * @return number of strings starting with prefix
+	 * @throws NullPointerException if prefix is null
+	 */
+	public int countWithPrefix(String prefix) {
+		if(prefix == null) throw new NullPointerException("Prefix can't be null");
+		String end = prefixEnd(prefix);
+		return (end == null ? size() : rank(end)) - rank(prefix);
+	}
+	
+	/**
+	 * Gets the least string that is greater than every string starting with the prefix.
+	 * Together with the prefix itself, this bounds the range of strings with that prefix.
+	 * @param prefix a prefix, not null
+	 * @return the end of the range of strings starting with prefix,
+	 * 		or null if no string is greater than all of them
+	 */
+	private static String prefixEnd(String prefix) {
+		int i = prefix.length() - 1;
+		while(i >= 0 && prefix.charAt(i) == Character.MAX_VALUE) --i;
+		if(i < 0) return null;
+		return prefix.substring(0, i) + (char)(prefix.charAt(i) + 1);
+	}
+	
+	/**
+	 * Gets the weight of a string in the lexicon.
+	 * @param str the string to look up (maybe null)
+	 * @return the weight of str, or zero if it is not in the lexicon
+	 */
+	public long getWeight(String str) {
+		assert _wellFormed() : "invariant false at start of getWeight()";
+		if(str == null) return 0;
+		
+		Node n = _root;
+		while(n != null) {
+			int c = str.compareTo(n.string);
+			if(c == 0) return n.weight;
+			n = c < 0 ? n.left : n.right;
+		}
+		return 0;
+	}
+	
+	/**
+	 * Gets the (at most) k strings with the greatest weight among the strings
+	 * starting with the given prefix, greatest weight first.  Strings with the
+	 * same weight come in [lexicographic] order.
+	 * The search is best-first using the maximum weight of each subtree,
+	 * so it only visits O(k log n) nodes rather than the whole prefix range.
+	 * @param prefix the prefix all the results must start with
+	 * @param k the maximum number of strings to return
+	 * @return array of the best strings
+	 * @throws NullPointerException if prefix is null
+	 * @throws IllegalArgumentException if k is negative
+	 */
+	public String[] topK(String prefix, int k) {
+		assert _wellFormed() : "invariant false at start of topK()";
+		if(prefix == null) throw new NullPointerException("Prefix can't be null");
+		if(k < 0) throw new IllegalArgumentException("Cannot find a negative number of strings: " + k);
+		
+		String[] result = new String[Math.min(k, _manyNodes)];
+		int found = topKHelper(prefix, result.length, result, null);
+		return found == result.length ? result : Arrays.copyOf(result, found);
+	}
+	
+	/**
+	 * Pass the (at most) k strings with the greatest weight among the strings
+	 * starting with the given prefix to the consumer along with their weights,
+	 * in the order of {@link #topK(String, int)}.
+	 * @param prefix the prefix all the results must start with
+	 * @param k the maximum number of strings to pass
+	 * @param consumer the consumer to accept each string and its weight
+	 * @throws NullPointerException if prefix or consumer is null
+	 * @throws IllegalArgumentException if k is negative
+	 */
+	void topKWeighted(String prefix, int k, BiConsumer<String,Long> consumer) {
+		assert _wellFormed() : "invariant false at start of topKWeighted()";
+		if(prefix == null) throw new NullPointerException("Prefix can't be null");
+		if(consumer == null) throw new NullPointerException("Can't accept into null consumer");
+		if(k < 0) throw new IllegalArgumentException("Cannot find a negative number of strings: " + k);
+		topKHelper(prefix, k, null, consumer);
+	}
+	
+	/**
+	 * Find the (at most) k best strings starting with the prefix, in the order
+	 * of {@link #topK(String, int)}, and either store them in the array
+	 * or pass them to the consumer.
+	 * @param prefix the prefix all the results must start with
+	 * @param k the maximum number of strings to find
+	 * @param result array to store the strings in, with room for k, or null to use the consumer
+	 * @param consumer the consumer to accept each string and its weight, if result is null
+	 * @return the number of strings found
+	 */
+	private int topKHelper(String prefix, int k, String[] result, BiConsumer<String,Long> consumer) {
+		int found = 0;
+		PriorityQueue<Candidate> queue = new PriorityQueue<>();
+		if(_root != null) queue.add(new Candidate(_root, false, null, false, false));
+		while(found < k && !queue.isEmpty()) {
+			Candidate c = queue.poll();
+			Node n = c.node;
+			if(c.single) {
+				if(result != null) result[found] = n.string;
+				else consumer.accept(n.string, n.weight);
+				++found;
+				continue;
+			}
+			boolean in = c.whole || n.string.startsWith(prefix);
+			if(n.left != null && (c.whole || prefix.compareTo(n.string) < 0))
+				queue.add(new Candidate(n.left, false, c.lo, c.loIn, in));
+			if(in)
+				queue.add(new Candidate(n, true, n.string, true, true));
+			if(n.right != null && (c.whole || in || prefix.compareTo(n.string) > 0))
+				queue.add(new Candidate(n.right, false, n.string, in, c.hiIn));
+		}
+		return found;
+	}
+	
+	/**
+	 * An entry in the best-first search of {@link Lexicon#topK(String, int)}:
+	 * either a single string (with its own weight) or a subtree
+	 * (with the greatest weight in it, an upper bound on what it can yield).
+	 * A subtree also records the exclusive lower bound of its strings,
+	 * and whether its bounds on each side start with the prefix.  If both do,
+	 * so does every string in the subtree, and it needs no further range checks.
+	 */
+	private static class Candidate implements Comparable<Candidate> {
+		final Node node;
+		final boolean single;
+		final String lo; // for a single string, the string itself
+		final boolean loIn, hiIn, whole;
+		
+		Candidate(Node n, boolean single, String lo, boolean loIn, boolean hiIn) {
+			node = n;
+			this.single = single;
+			this.lo = lo;
+			this.loIn = loIn;
+			this.hiIn = hiIn;
+			whole = loIn && hiIn;
+		}
+		
+		long priority() {
+			return single ? node.weight : node.maxWeight;
+		}
+		
+		@Override
+		public int compareTo(Candidate o) {
+			int c = Long.compare(o.priority(), priority());
+			if(c != 0) return c;
+			// Among equal weights, take strings in order.  A subtree's strings
+			// are all greater than its lower bound, so a single string at or
+			// before that bound comes first.
+			if(lo != o.lo) {
+				if(lo == null) return -1;
+				if(o.lo == null) return 1;
+				c = lo.compareTo(o.lo);
+				if(c != 0) return c;
+			}
+			return (single ? 0 : 1) - (o.single ? 0 : 1);
+		}
+	}
+	
 	/**
 	 * Accept into the consumer all strings in this lexicon.
 	 * @param consumer the consumer to accept the strings
@@ -172,6 +744,24 @@ public class Lexicon {
 		consumeAllWithPrefix(consumer,"");
 	}
 	
+	/**
+	 * Pass every string in this lexicon, in order, to the consumer along with
+	 * its weight, in one walk over the tree (rather than looking up each weight).
+	 * @param consumer the consumer to accept each string and its weight
+	 * @throws NullPointerException if consumer is null
+	 */
+	void consumeAllWeighted(BiConsumer<String,Long> consumer) {
+		assert _wellFormed() : "invariant false at start of consumeAllWeighted()";
+		if (consumer == null) throw new NullPointerException("Can't accept into null consumer");
+		Node[] stack = new Node[height(_root)];
+		int depth = 0;
+		for(Node n = _root; n != null || depth > 0; n = n.right) {
+			for(; n != null; n = n.left) stack[depth++] = n;
+			n = stack[--depth];
+			consumer.accept(n.string, n.weight);
+		}
+	}
+	
 	/**
 	 * Accept into the consumer all strings that start with the given prefix.
 	 * @param consumer the consumer to accept the strings
@@ -182,52 +772,593 @@ public class Lexicon {
 		assert _wellFormed() : "invariant false at start of consumeAllWithPrefix()";
 		if (consumer == null) throw new NullPointerException("Can't accept into null consumer");
 		if (prefix == null) throw new NullPointerException("Prefix can't be null");
-		consumeAllHelper(consumer, prefix, _root);
+		long start = LexiconMetrics.start();
+		long counts = consumeAllHelper(consumer, null, prefix);
+		LexiconMetrics.record(LexiconMetrics.Op.CONSUME_WITH_PREFIX, start, (int)(counts >>> 32), 0, (int)counts);
 	}
 	
-	private void consumeAllHelper(Consumer<String> consumer, String prefix, Node n) {
-		if(n == null) return;
-		if(n.left != null && prefix.compareTo(n.string) < 0)
-			consumeAllHelper(consumer, prefix, n.left);
-		
-		if(n.string.startsWith(prefix))
+	/**
+	 * Accept into the consumer (in order) the first few strings that start
+	 * with the given prefix, for instance to show the first completions of
+	 * what has been typed.  The time taken depends on the number of strings
+	 * accepted, not on how many start with the prefix.
+	 * @param consumer the consumer to accept the strings
+	 * @param prefix the prefix of the strings to find
+	 * @param limit the greatest number of strings to accept
+	 * @return the number of strings accepted
+	 * @throws NullPointerException if consumer or prefix is null
+	 * @throws IllegalArgumentException if limit is negative
+	 */
+	public int consumeAllWithPrefix(Consumer<String> consumer, String prefix, int limit) {
+		if (consumer == null) throw new NullPointerException("Can't accept into null consumer");
+		if (limit < 0) throw new IllegalArgumentException("limit can't be negative: " + limit);
+		int[] count = { 0 };
+		if (limit > 0) consumeWithPrefixWhile(s -> { consumer.accept(s); return ++count[0] < limit; }, prefix);
+		else if (prefix == null) throw new NullPointerException("Prefix can't be null");
+		return count[0];
+	}
+	
+	/**
+	 * Pass the strings that start with the given prefix to the action (in order)
+	 * until it returns false or there are no more.
+	 * The time taken depends on the number of strings passed, not on
+	 * how many start with the prefix.
+	 * @param action the action to receive the strings; it returns whether to continue
+	 * @param prefix the prefix of the strings to find
+	 * @return the number of strings passed to the action, including the one (if any) it returned false for
+	 * @throws NullPointerException if action or prefix is null
+	 */
+	public int consumeWithPrefixWhile(Predicate<String> action, String prefix) {
+		assert _wellFormed() : "invariant false at start of consumeWithPrefixWhile()";
+		if (action == null) throw new NullPointerException("Can't pass strings to null action");
+		if (prefix == null) throw new NullPointerException("Prefix can't be null");
+		long start = LexiconMetrics.start();
+		long counts = consumeAllHelper(null, action, prefix);
+		LexiconMetrics.record(LexiconMetrics.Op.CONSUME_WITH_PREFIX, start, (int)(counts >>> 32), 0, (int)counts);
+		return (int)counts;
+	}
+	
+	/**
+	 * Pass the strings that start with the prefix in order to the consumer,
+	 * or (if the consumer is null) to the action until it returns false.
+	 * The nodes whose strings are still to come are kept on an explicit stack
+	 * (never more than the height of the tree), so a degenerate tree cannot
+	 * overflow the call stack, and the walk ends at the first string past
+	 * the prefix or when the action declines more.
+	 * Both counts come back in one long so that callers need not allocate
+	 * anything to collect them.
+	 * @param consumer the consumer to accept every string, or null to use the action
+	 * @param action the action to receive the strings if consumer is null;
+	 * 			it returns whether to continue
+	 * @param prefix the prefix of the strings to find
+	 * @return the number of nodes visited in the high 32 bits, and
+	 * 			the number of strings passed in the low 32 bits
+	 */
+	private long consumeAllHelper(Consumer<String> consumer, Predicate<String> action, String prefix) {
+		Node[] stack = new Node[height(_root)];
+		int depth = 0, visited = 0, passed = 0;
+		for(Node n = _root; n != null; ++visited) {
+			if(prefix.compareTo(n.string) <= 0) {
+				stack[depth++] = n;
+				n = n.left;
+			}
+			else n = n.right;
+		}
+		while(depth > 0) {
+			Node n = stack[--depth];
+			if(!n.string.startsWith(prefix)) break;
+			++passed;
+			if(consumer != null) consumer.accept(n.string);
+			else if(!action.test(n.string)) break;
+			for(Node m = n.right; m != null; m = m.left, ++visited)
+				stack[depth++] = m;
+		}
+		return (long)visited << 32 | passed;
+	}
+	
+	/**
+	 * Accept into the consumer (in order) the strings from one string up to
+	 * (but not including) another, at most the given number of them.
+	 * Pages through the lexicon can be read by starting each page
+	 * after the last string of the one before with {@link #consumeAfter}.
+	 * @param fromInclusive the least string to accept (if present), not null
+	 * @param toExclusive the string that all accepted strings must be less than,
+	 * 			or null for no upper bound
+	 * @param limit the greatest number of strings to accept
+	 * @param consumer the consumer to accept the strings
+	 * @return the number of strings accepted
+	 * @throws NullPointerException if fromInclusive or consumer is null
+	 * @throws IllegalArgumentException if limit is negative
+	 */
+	public int consumeRange(String fromInclusive, String toExclusive, int limit, Consumer<String> consumer) {
+		assert _wellFormed() : "invariant false at start of consumeRange()";
+		if (fromInclusive == null) throw new NullPointerException("Range can't start at null");
+		return consumeRangeHelper(fromInclusive, true, toExclusive, limit, consumer);
+	}
+	
+	/**
+	 * Accept into the consumer (in order) the strings greater than the given
+	 * string, at most the given number of them.
+	 * @param str the string that all accepted strings must be greater than, not null
+	 * @param limit the greatest number of strings to accept
+	 * @param consumer the consumer to accept the strings
+	 * @return the number of strings accepted
+	 * @throws NullPointerException if str or consumer is null
+	 * @throws IllegalArgumentException if limit is negative
+	 */
+	public int consumeAfter(String str, int limit, Consumer<String> consumer) {
+		assert _wellFormed() : "invariant false at start of consumeAfter()";
+		if (str == null) throw new NullPointerException("Cannot consume after null");
+		return consumeRangeHelper(str, false, null, limit, consumer);
+	}
+	
+	/**
+	 * Accept the strings in a range in order, with the same explicit stack as
+	 * {@link #consumeAllHelper}: a descent to the first string in the range
+	 * and then a step for each string, so the time is the height of the tree
+	 * plus the number of strings accepted.
+	 * @param from the lower bound of the range
+	 * @param inclusive whether a string equal to from is in the range
+	 * @param to the (exclusive) upper bound, or null if there is none
+	 * @param limit the greatest number of strings to accept
+	 * @param consumer the consumer to accept the strings
+	 * @return the number of strings accepted
+	 */
+	private int consumeRangeHelper(String from, boolean inclusive, String to, int limit, Consumer<String> consumer) {
+		if (consumer == null) throw new NullPointerException("Can't accept into null consumer");
+		if (limit < 0) throw new IllegalArgumentException("limit can't be negative: " + limit);
+		Node[] stack = new Node[limit == 0 ? 0 : height(_root)];
+		int depth = 0;
+		for(Node n = _root; n != null && limit > 0; ) {
+			int c = from.compareTo(n.string);
+			if(c < 0 || c == 0 && inclusive) {
+				stack[depth++] = n;
+				n = n.left;
+			}
+			else n = n.right;
+		}
+		int count = 0;
+		while(depth > 0 && count < limit) {
+			Node n = stack[--depth];
+			if(to != null && n.string.compareTo(to) >= 0) break;
 			consumer.accept(n.string);
+			++count;
+			for(Node m = n.right; m != null; m = m.left)
+				stack[depth++] = m;
+		}
+		return count;
+	}
+	
+	/**
+	 * Accept into the consumer (in order) all strings in this lexicon that are
+	 * within the given edit distance of a word: that is, which can be turned into
+	 * the word by at most maxEdits single-character insertions, deletions or substitutions.
+	 * The tree is walked in order in step with a Levenshtein automaton for the word,
+	 * and any subtree whose strings all share a prefix too far from the word
+	 * is skipped at once.
+	 * @param word the word to find strings near
+	 * @param maxEdits the greatest edit distance allowed
+	 * @param consumer the consumer to accept the strings
+	 * @throws NullPointerException if word or consumer is null
+	 * @throws IllegalArgumentException if maxEdits is negative
+	 */
+	public void consumeWithinDistance(String word, int maxEdits, Consumer<String> consumer) {
+		assert _wellFormed() : "invariant false at start of consumeWithinDistance()";
+		if (word == null) throw new NullPointerException("Cannot find strings near null");
+		if (consumer == null) throw new NullPointerException("Can't accept into null consumer");
+		if (maxEdits < 0) throw new IllegalArgumentException("Edit distance can't be negative: " + maxEdits);
+		consumeAccepted(new MatchWalk(new LevenshteinMatcher(word, maxEdits), ""), consumer);
+	}
+	
+	/**
+	 * Accept into the consumer (in order) all strings in this lexicon that match
+	 * a wildcard pattern.  In the pattern, <code>?</code> matches any one character,
+	 * <code>*</code> matches any sequence of characters, <code>[abc]</code> matches
+	 * one of the listed characters (ranges like <code>[a-z]</code> are allowed, and
+	 * <code>[!abc]</code> matches any character not listed), and <code>\</code>
+	 * makes the next character match only itself.  Any other character matches itself.
+	 * <p>
+	 * Only the part of the tree holding strings that start with the literal
+	 * characters at the front of the pattern is searched, and within it, any
+	 * subtree whose strings all share a prefix (or a length) the pattern rules
+	 * out is skipped at once.
+	 * @param pattern the pattern to match, e.g. <code>c?t*</code>
+	 * @param consumer the consumer to accept the strings
+	 * @throws NullPointerException if pattern or consumer is null
+	 * @throws IllegalArgumentException if the pattern is malformed
+	 */
+	public void consumeMatching(String pattern, Consumer<String> consumer) {
+		assert _wellFormed() : "invariant false at start of consumeMatching()";
+		if (pattern == null) throw new NullPointerException("Pattern can't be null");
+		if (consumer == null) throw new NullPointerException("Can't accept into null consumer");
+		PatternMatcher matcher = new PatternMatcher(pattern);
+		consumeAccepted(new MatchWalk(matcher, matcher.literalPrefix()), consumer);
+	}
+	
+	/**
+	 * Accept into the consumer (in order) all strings in the tree that the
+	 * matcher accepts.  Every string in a subtree lies strictly between its
+	 * bounds, so it starts with their common prefix; if the matcher rejects that
+	 * prefix, the whole subtree is skipped.  As in {@link #consumeAllHelper},
+	 * subtrees wholly outside the range of the walk's prefix are never entered,
+	 * and the nodes whose strings are still to come are kept on an explicit
+	 * stack (each with the upper bound of its subtree), so a degenerate tree
+	 * cannot overflow the call stack.
+	 * @param walk the matcher being run
+	 * @param consumer the consumer to accept the strings
+	 */
+	private void consumeAccepted(MatchWalk walk, Consumer<String> consumer) {
+		int size = height(_root);
+		Node[] stack = new Node[size];
+		String[] his = new String[size]; // if non-null, all strings in the node's subtree are less than this
+		int depth = pushAccepted(walk, _root, null, null, stack, his, 0);
+		while (depth > 0) {
+			Node n = stack[--depth];
+			if (walk.alive(n.string, n.string.length()) && walk.matcher.accepts(n.string.length()))
+				consumer.accept(n.string);
+			if (walk.end == null || walk.end.compareTo(n.string) > 0)
+				depth = pushAccepted(walk, n.right, n.string, his[depth], stack, his, depth);
+		}
+	}
+	
+	/**
+	 * Push the nodes down the left side of a subtree for {@link #consumeAccepted},
+	 * stopping at a subtree the matcher rejects or that lies before the walk's prefix.
+	 * @param n root of the subtree
+	 * @param lo if non-null, all strings in the subtree are greater than this
+	 * @param hi if non-null, all strings in the subtree are less than this
+	 * @return the new depth of the stack
+	 */
+	private static int pushAccepted(MatchWalk walk, Node n, String lo, String hi, Node[] stack, String[] his, int depth) {
+		for (; n != null; n = n.left) {
+			if (lo != null && hi != null && !walk.alive(lo, commonPrefix(lo, hi))) break;
+			stack[depth] = n;
+			his[depth++] = hi;
+			if (walk.prefix.compareTo(n.string) >= 0) break;
+			hi = n.string;
+		}
+		return depth;
+	}
+	
+	private static int commonPrefix(String a, String b) {
+		int max = Math.min(a.length(), b.length());
+		int k = 0;
+		while (k < max && a.charAt(k) == b.charAt(k)) ++k;
+		return k;
+	}
+	
+	/**
+	 * A matcher together with the string it last read, so that the next string
+	 * only needs to be read from where it differs.
+	 */
+	private static class MatchWalk {
+		final PrefixMatcher matcher;
+		final String prefix, end; // every accepted string is in [prefix,end)
+		String prev = "";
+		int ready = 0; // the matcher has states for this many characters of prev
 		
-		if(n.right != null && (prefix.compareTo(n.string) > 0 || n.string.startsWith(prefix)))
-			consumeAllHelper(consumer, prefix, n.right);
+		/**
+		 * @param m the matcher to run
+		 * @param p a prefix of every string the matcher can accept
+		 */
+		MatchWalk(PrefixMatcher m, String p) {
+			matcher = m;
+			prefix = p;
+			end = prefixEnd(p);
+		}
+		
+		/**
+		 * Determine whether the matcher could still accept some extension of a prefix.
+		 * @param s string whose prefix to check
+		 * @param length length of the prefix
+		 * @return false if the matcher rejects the prefix
+		 */
+		boolean alive(String s, int length) {
+			int d = 0;
+			int max = Math.min(ready, length);
+			while (d < max && s.charAt(d) == prev.charAt(d)) ++d;
+			prev = s;
+			while (d < length) {
+				if (!matcher.step(d, s.charAt(d))) {
+					ready = d;
+					return false;
+				}
+				++d;
+			}
+			ready = d;
+			return true;
+		}
+	}
+	
+	/**
+	 * Return a spliterator over the strings in this lexicon, in order.
+	 * It splits on subtree boundaries, so streams over it can run in parallel,
+	 * and knows the exact size of every part it splits off.
+	 * The lexicon must not be changed while the spliterator is in use.
+	 * @return a new spliterator over all the strings
+	 */
+	public Spliterator<String> spliterator() {
+		assert _wellFormed() : "invariant false at start of spliterator()";
+		return new TreeSpliterator(_root, "", _manyNodes, true);
+	}
+	
+	/**
+	 * Return a cursor positioned before the first string in this lexicon.
+	 * @return a new cursor
+	 */
+	public LexiconCursor cursor() {
+		assert _wellFormed() : "invariant false at start of cursor()";
+		return new TreeCursor();
+	}
+	
+	/**
+	 * A cursor that keeps the path from the root to the string after its
+	 * position; an empty path means it is after the last string.
+	 * Moving to a neighbouring string pushes or pops nodes on the path,
+	 * which takes amortized constant time over a walk in either direction.
+	 */
+	private class TreeCursor implements LexiconCursor {
+		private Node[] path = new Node[0];
+		private int depth;
+		private int expectedModCount;
+		
+		TreeCursor() {
+			seek("");
+		}
+		
+		@Override
+		public void seek(String str) {
+			if(str == null) throw new NullPointerException("Cannot seek null");
+			if(path.length < height(_root)) path = new Node[height(_root)];
+			expectedModCount = _modCount;
+			depth = 0;
+			int ceiling = 0;
+			Node n = _root;
+			while(n != null) {
+				path[depth++] = n;
+				int c = str.compareTo(n.string);
+				if(c > 0) n = n.right;
+				else {
+					ceiling = depth;
+					if(c == 0) break;
+					n = n.left;
+				}
+			}
+			depth = ceiling;
+		}
+		
+		private void checkModCount() {
+			if(_modCount != expectedModCount)
+				throw new ConcurrentModificationException("lexicon changed since the cursor was positioned");
+		}
+		
+		@Override
+		public String next() {
+			checkModCount();
+			if(depth == 0) return null;
+			Node n = path[depth-1];
+			if(n.right != null) {
+				for(Node m = n.right; m != null; m = m.left) path[depth++] = m;
+			} else {
+				Node child;
+				do child = path[--depth];
+				while(depth > 0 && path[depth-1].right == child);
+			}
+			return n.string;
+		}
+		
+		@Override
+		public String prev() {
+			checkModCount();
+			if(depth == 0) {
+				for(Node m = _root; m != null; m = m.right) path[depth++] = m;
+				return depth == 0 ? null : path[depth-1].string;
+			}
+			Node n = path[depth-1];
+			if(n.left != null) {
+				for(Node m = n.left; m != null; m = m.right) path[depth++] = m;
+				return path[depth-1].string;
+			}
+			int saved = depth;
+			Node child;
+			do child = path[--depth];
+			while(depth > 0 && path[depth-1].left == child);
+			if(depth == 0) {
+				depth = saved; // already before the first string
+				return null;
+			}
+			return path[depth-1].string;
+		}
+	}
+	
+	/**
+	 * Return a stream of the strings in this lexicon, in order.
+	 * @return a new (sequential) stream of all the strings
+	 */
+	public Stream<String> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+	
+	/**
+	 * Return a stream of the strings in this lexicon that start with the given prefix, in order.
+	 * @param prefix the prefix that all the strings must start with
+	 * @return a new (sequential) stream of the matching strings
+	 * @throws NullPointerException if prefix is null
+	 */
+	public Stream<String> streamWithPrefix(String prefix) {
+		assert _wellFormed() : "invariant false at start of streamWithPrefix()";
+		if (prefix == null) throw new NullPointerException("Prefix can't be null");
+		return StreamSupport.stream(new TreeSpliterator(_root, prefix, countWithPrefix(prefix), prefix.isEmpty()), false);
+	}
+	
+	/**
+	 * A spliterator over the strings with a given prefix in part of a tree.
+	 * What remains to be traversed is kept as a deque of parts, in order:
+	 * a Node part stands for all the matching strings in that subtree
+	 * and a String part for just that string.  Splitting hands the first half
+	 * of the parts to a new spliterator, first expanding a lone subtree
+	 * into its left subtree, its root and its right subtree.
+	 * Without a prefix, every part's size is known exactly, so the
+	 * spliterator is SUBSIZED; with one, only the initial size is exact.
+	 */
+	private static class TreeSpliterator implements Spliterator<String> {
+		private final ArrayDeque<Object> parts = new ArrayDeque<>();
+		private final String prefix;
+		private long estimate;
+		private boolean exact;
+		private final boolean subsized;
+		
+		TreeSpliterator(Node root, String prefix, long estimate, boolean subsized) {
+			if (root != null) parts.add(root);
+			this.prefix = prefix;
+			this.estimate = estimate;
+			this.exact = true;
+			this.subsized = subsized;
+		}
+		
+		/** Replace the subtree at the front of the deque with its parts. */
+		private void expand(Node n) {
+			if (n.right != null && (prefix.compareTo(n.string) > 0 || n.string.startsWith(prefix)))
+				parts.addFirst(n.right);
+			if (n.string.startsWith(prefix))
+				parts.addFirst(n.string);
+			if (n.left != null && prefix.compareTo(n.string) < 0)
+				parts.addFirst(n.left);
+		}
+		
+		@Override
+		public boolean tryAdvance(Consumer<? super String> action) {
+			if (action == null) throw new NullPointerException("Can't accept into null consumer");
+			for (;;) {
+				Object part = parts.pollFirst();
+				if (part == null) return false;
+				if (part instanceof Node) {
+					expand((Node)part);
+					continue;
+				}
+				if (exact) --estimate;
+				action.accept((String)part);
+				return true;
+			}
+		}
+		
+		@Override
+		public Spliterator<String> trySplit() {
+			if (parts.size() == 1 && parts.peekFirst() instanceof Node)
+				expand((Node)parts.pollFirst());
+			int n = parts.size() / 2;
+			if (n == 0) return null;
+			
+			TreeSpliterator first = new TreeSpliterator(null, prefix, 0, subsized);
+			for (int i=0; i < n; ++i) {
+				Object part = parts.pollFirst();
+				first.parts.addLast(part);
+				first.estimate += part instanceof Node ? ((Node)part).size : 1;
+			}
+			if (!subsized) {
+				first.estimate = estimate >>> 1;
+				first.exact = exact = false;
+			}
+			estimate -= first.estimate;
+			return first;
+		}
+		
+		@Override
+		public long estimateSize() {
+			return estimate;
+		}
+		
+		@Override
+		public int characteristics() {
+			return ORDERED | SORTED | DISTINCT | NONNULL | (exact ? SIZED : 0) | (subsized ? SUBSIZED : 0);
+		}
+		
+		@Override
+		public Comparator<? super String> getComparator() {
+			return null; // natural order
+		}
 	}
 	
 	/// Mutators
 	
 	/**
 	 * Add a new string to the lexicon. If it already exists, do nothing and return false.
+	 * A new string has weight zero.
 	 * @param str the string to add (must not be null)
 	 * @return true if str was added, false otherwise
 	 * @throws NullPointerException if str is null
 	 */
 	public boolean add(String str) {
 		assert _wellFormed() : "invariant false at start of add()";
-		boolean result = false;
 		if(str == null) throw new NullPointerException("cannot add null");
 		
+		boolean result = insert(str, 0, false);
+		
+		assert _wellFormed() : "invariant false at end of add()";
+		return result;
+	}
+	
+	/**
+	 * Add a string with the given weight to the lexicon.  If it already exists,
+	 * change its weight and return false.
+	 * Weights order the results of {@link #topK(String, int)}; for instance
+	 * they may be how often each word is used.
+	 * @param str the string to add (must not be null)
+	 * @param weight the weight of the string
+	 * @return true if str was added, false if it was already present
+	 * @throws NullPointerException if str is null
+	 */
+	public boolean add(String str, long weight) {
+		assert _wellFormed() : "invariant false at start of add()";
+		if(str == null) throw new NullPointerException("cannot add null");
+		
+		boolean result = insert(str, weight, true);
+		
+		assert _wellFormed() : "invariant false at end of add()";
+		return result;
+	}
+	
+	/**
+	 * Add a string with a weight, or find it if it is already present.
+	 * @param str string to add, not null
+	 * @param weight weight of the string if it is new
+	 * @param reweigh whether to set the weight if the string is already present
+	 * @return whether the string was added
+	 */
+	private boolean insert(String str, long weight, boolean reweigh) {
+		long start = LexiconMetrics.start();
+		long compared = 0;
+		Node[] path = new Node[height(_root)];
+		int depth = 0;
 		Node n = _root;
 		Node lag = null;
 		while(n != null) {
+			if(depth == path.length) path = Arrays.copyOf(path, depth * 2 + 1);
+			path[depth++] = n;
+			if(LexiconMetrics.ENABLED) compared += LexiconMetrics.comparedLength(str, n.string);
 			if(n.string.equals(str)) break;
 			
 			lag = n;
 			if(str.compareTo(n.string) > 0) n = n.right;
 			else n = n.left;
 		}
-		if(n == null) {
-			n = new Node(str);
-			placeUnder(n, str, lag);
-			++_manyNodes;
-			result = true;
+		if(n != null) {
+			if(reweigh && n.weight != weight) {
+				n.weight = weight;
+				retrace(path, depth);
+			}
+			LexiconMetrics.record(LexiconMetrics.Op.ADD, start, depth, compared, 0);
+			return false;
 		}
 		
-		assert _wellFormed() : "invariant false at end of add()";
-		return result;
+		n = new Node(str);
+		n.weight = n.maxWeight = weight;
+		placeUnder(n, str, lag);
+		++_manyNodes;
+		++_modCount;
+		retrace(path, depth);
+		LexiconMetrics.record(LexiconMetrics.Op.ADD, start, depth, compared, 1);
+		return true;
 	}
 	
 	// Optional: you may wish to define a helper method or two.
@@ -240,12 +1371,89 @@ public class Lexicon {
 			lag.left = toAdd;
 	}
 	
+	/**
+	 * Walk back up the path from a changed node to the root, fixing heights,
+	 * sizes and maximum weights and (if this lexicon is balanced) rotating any node that is out of balance.
+	 * @param path the nodes from the root down to the changed node or the parent of the changed spot
+	 * @param depth the number of nodes on the path
+	 */
+	private void retrace(Node[] path, int depth) {
+		for(int i = depth - 1; i >= 0; --i) {
+			Node p = path[i];
+			Node r = _balanced ? rebalance(p) : fix(p);
+			if(r == p) continue;
+			if(i == 0) _root = r;
+			else if(path[i-1].left == p) path[i-1].left = r;
+			else path[i-1].right = r;
+		}
+	}
+	
+	private static int height(Node n) {
+		return n == null ? 0 : n.height;
+	}
+	
+	private static int size(Node n) {
+		return n == null ? 0 : n.size;
+	}
+	
+	private static long maxWeight(Node n) {
+		return n == null ? Long.MIN_VALUE : n.maxWeight;
+	}
+	
+	/**
+	 * Recompute the height, size and maximum weight of a node from those of its children.
+	 * @param n node to fix, not null
+	 * @return n
+	 */
+	private static Node fix(Node n) {
+		n.height = 1 + Math.max(height(n.left), height(n.right));
+		n.size = 1 + size(n.left) + size(n.right);
+		n.maxWeight = Math.max(n.weight, Math.max(maxWeight(n.left), maxWeight(n.right)));
+		return n;
+	}
+	
+	private static Node rotateRight(Node n) {
+		Node l = n.left;
+		n.left = l.right;
+		l.right = fix(n);
+		return fix(l);
+	}
+	
+	private static Node rotateLeft(Node n) {
+		Node r = n.right;
+		n.right = r.left;
+		r.left = fix(n);
+		return fix(r);
+	}
+	
+	/**
+	 * Restore the AVL property at a node whose children are balanced
+	 * but may differ in height by two.
+	 * @param n the node to rebalance
+	 * @return the new root of the subtree
+	 */
+	private static Node rebalance(Node n) {
+		fix(n);
+		int balance = height(n.left) - height(n.right);
+		if(balance > 1) {
+			if(height(n.left.left) < height(n.left.right)) n.left = rotateLeft(n.left);
+			return rotateRight(n);
+		}
+		if(balance < -1) {
+			if(height(n.right.right) < height(n.right.left)) n.right = rotateRight(n.right);
+			return rotateLeft(n);
+		}
+		return n;
+	}
+	
 
 	/**
 	 * Add all strings in the array into this lexicon from the range [lo,hi).
 	 * The elements are added recursively from the middle, so that
 	 * if the array was sorted, the tree will be balanced.
-	 * All the tree mutations should be done by add.
+	 * If this lexicon is empty and the range is already sorted without
+	 * duplicates, the tree is built directly in linear time;
+	 * otherwise all the tree mutations are done by add.
 	 * Return number of strings actually added; some might not be added
 	 * if they are duplicates.
 	 * @param array source
@@ -260,6 +1468,14 @@ public class Lexicon {
 		
 		if(lo == hi) return 0;
 		
+		if(_root == null && isStrictlySorted(array, lo, hi)) {
+			_root = buildBalanced(array, lo, hi);
+			_manyNodes = hi - lo;
+			++_modCount;
+			assert _wellFormed() : "invariant false at end of addAll()";
+			return hi - lo;
+		}
+		
 		int mid = (lo + (hi - lo) / 2);
 		int n1 = add(array[mid]) ? 1 : 0;
 		int n2 = addAll(array, lo, mid);
@@ -271,22 +1487,301 @@ public class Lexicon {
 		return n1 + n2 + n3;
 	}
 	
+	/**
+	 * Remove a string from this lexicon.  A node with two children takes over
+	 * the string (and weight) of its successor, whose node is removed instead.
+	 * @param str the string to remove (maybe null)
+	 * @return true if the string was removed, false if it was not in the lexicon
+	 */
+	public boolean remove(String str) {
+		assert _wellFormed() : "invariant false at start of remove()";
+		if(str == null) return false;
+		
+		boolean result = delete(str);
+		
+		assert _wellFormed() : "invariant false at end of remove()";
+		return result;
+	}
+	
+	private boolean delete(String str) {
+		Node[] path = new Node[height(_root)];
+		int depth = 0;
+		Node n = _root;
+		while(n != null) {
+			path[depth++] = n;
+			int c = str.compareTo(n.string);
+			if(c == 0) break;
+			n = c < 0 ? n.left : n.right;
+		}
+		if(n == null) return false;
+		
+		if(n.left != null && n.right != null) {
+			Node s = n.right;
+			path[depth++] = s;
+			while(s.left != null) {
+				s = s.left;
+				path[depth++] = s;
+			}
+			n.string = s.string;
+			n.weight = s.weight;
+			n = s;
+		}
+		
+		Node child = n.left != null ? n.left : n.right;
+		--depth; // path[depth] is n
+		if(depth == 0) _root = child;
+		else if(path[depth-1].left == n) path[depth-1].left = child;
+		else path[depth-1].right = child;
+		--_manyNodes;
+		++_modCount;
+		retrace(path, depth);
+		return true;
+	}
+	
+	/**
+	 * Remove all strings in the array from this lexicon from the range [lo,hi).
+	 * Strings not in the lexicon, nulls and duplicates are ignored.
+	 * When many strings are removed at once, rather than removing them one
+	 * at a time, the lexicon is swept once, keeping the survivors (with their
+	 * weights) and relinking them into a balanced tree.
+	 * @param array source, in any order
+	 * @param lo index lower bound
+	 * @param hi index upper bound
+	 * @return number of strings removed
+	 * @throws NullPointerException if array is null
+	 */
+	public int removeAll(String[] array, int lo, int hi) {
+		assert _wellFormed() : "invariant false at start of removeAll()";
+		if(array == null) throw new NullPointerException("Cannot remove from null array");
+		
+		int result = 0;
+		if((long)(hi - lo) * height(_root) < _manyNodes) {
+			for(int i = lo; i < hi; ++i)
+				if(array[i] != null && delete(array[i])) ++result;
+		} else {
+			String[] doomed = Arrays.copyOfRange(array, lo, hi);
+			int count = 0;
+			for(String s : doomed)
+				if(s != null) doomed[count++] = s;
+			Arrays.sort(doomed, 0, count);
+			result = sweep(doomed, count);
+		}
+		
+		assert _wellFormed() : "invariant false at end of removeAll()";
+		return result;
+	}
+	
+	/**
+	 * Remove all strings that start with the given prefix.
+	 * @param prefix the prefix of the strings to remove
+	 * @return number of strings removed
+	 * @throws NullPointerException if prefix is null
+	 */
+	public int removeWithPrefix(String prefix) {
+		assert _wellFormed() : "invariant false at start of removeWithPrefix()";
+		if(prefix == null) throw new NullPointerException("Prefix can't be null");
+		
+		String[] doomed = new String[countWithPrefix(prefix)];
+		int[] i = { 0 };
+		consumeAllHelper(s -> doomed[i[0]++] = s, null, prefix);
+		int result = removeAll(doomed, 0, doomed.length);
+		
+		assert _wellFormed() : "invariant false at end of removeWithPrefix()";
+		return result;
+	}
+	
+	/**
+	 * Remove the given strings in one pass over the tree, and
+	 * relink the remaining nodes into a perfectly balanced tree.
+	 * @param doomed the strings to remove, sorted in [0,count), maybe with duplicates
+	 * @param count number of strings
+	 * @return number of strings removed
+	 */
+	private int sweep(String[] doomed, int count) {
+		Node[] keep = inOrder();
+		int kept = 0, d = 0;
+		for(Node n : keep) {
+			while(d < count && doomed[d].compareTo(n.string) < 0) ++d;
+			if(d < count && doomed[d].equals(n.string)) ++d;
+			else keep[kept++] = n;
+		}
+		int removed = _manyNodes - kept;
+		_root = link(keep, 0, kept);
+		_manyNodes = kept;
+		++_modCount;
+		return removed;
+	}
+	
+	/**
+	 * Gets all the nodes of the tree in order of their strings.
+	 * @return a new array of the nodes, in order
+	 */
+	private Node[] inOrder() {
+		Node[] result = new Node[_manyNodes];
+		int i = 0;
+		ArrayDeque<Node> stack = new ArrayDeque<>();
+		for(Node n = _root; n != null || !stack.isEmpty(); n = n.right) {
+			for(; n != null; n = n.left) stack.push(n);
+			n = stack.pop();
+			result[i++] = n;
+		}
+		return result;
+	}
+	
+	/**
+	 * Create a lexicon holding every string in either lexicon.
+	 * The two are merged in linear time and the result is built
+	 * as a perfectly balanced tree, balanced if the first lexicon is.
+	 * A string in both keeps its weight from the first.
+	 * @param a the first lexicon
+	 * @param b the second lexicon
+	 * @return a new lexicon with the union of the strings
+	 * @throws NullPointerException if either lexicon is null
+	 */
+	public static Lexicon union(Lexicon a, Lexicon b) {
+		return merge(a, b, true, true, true);
+	}
+	
+	/**
+	 * Create a lexicon holding every string in both lexicons, with its weight from the first.
+	 * The two are merged as for {@link #union(Lexicon, Lexicon)}.
+	 * @param a the first lexicon
+	 * @param b the second lexicon
+	 * @return a new lexicon with the intersection of the strings
+	 * @throws NullPointerException if either lexicon is null
+	 */
+	public static Lexicon intersect(Lexicon a, Lexicon b) {
+		return merge(a, b, false, true, false);
+	}
+	
+	/**
+	 * Create a lexicon holding every string in the first lexicon but not the second.
+	 * The two are merged as for {@link #union(Lexicon, Lexicon)}.
+	 * @param a the lexicon to take strings from
+	 * @param b the lexicon of strings to leave out
+	 * @return a new lexicon with the difference of the strings
+	 * @throws NullPointerException if either lexicon is null
+	 */
+	public static Lexicon difference(Lexicon a, Lexicon b) {
+		return merge(a, b, true, false, false);
+	}
+	
+	/**
+	 * Merge the strings of two lexicons into a new one.
+	 * @param a the first lexicon
+	 * @param b the second lexicon
+	 * @param onlyA whether to keep strings only in a
+	 * @param both whether to keep strings in both (with the weight from a)
+	 * @param onlyB whether to keep strings only in b
+	 * @return a new lexicon
+	 */
+	private static Lexicon merge(Lexicon a, Lexicon b, boolean onlyA, boolean both, boolean onlyB) {
+		if(a == null || b == null) throw new NullPointerException("Cannot merge with null lexicon");
+		assert a._wellFormed() : "invariant of first lexicon false at start of merge";
+		assert b._wellFormed() : "invariant of second lexicon false at start of merge";
+		
+		Node[] x = a.inOrder(), y = b.inOrder();
+		Node[] out = new Node[(onlyA ? x.length : 0) + (onlyB ? y.length : 0) + (both && !onlyA && !onlyB ? Math.min(x.length, y.length) : 0)];
+		int i = 0, j = 0, k = 0;
+		while(i < x.length || j < y.length) {
+			int c = i == x.length ? 1 : j == y.length ? -1 : x[i].string.compareTo(y[j].string);
+			Node keep = null;
+			if(c < 0) {
+				if(onlyA) keep = x[i];
+				++i;
+			} else if(c > 0) {
+				if(onlyB) keep = y[j];
+				++j;
+			} else {
+				if(both) keep = x[i];
+				++i;
+				++j;
+			}
+			if(keep != null) {
+				Node n = new Node(keep.string);
+				n.weight = keep.weight;
+				out[k++] = n;
+			}
+		}
+		
+		Lexicon result = new Lexicon(a._balanced);
+		result._root = link(out, 0, k);
+		result._manyNodes = k;
+		assert result._wellFormed() : "invariant false at end of merge";
+		return result;
+	}
+	
+	/**
+	 * Link the nodes in the range [lo,hi) of the array into a perfectly
+	 * balanced tree, keeping their strings and weights.
+	 * @param nodes nodes in order of their strings
+	 * @param lo index lower bound
+	 * @param hi index upper bound
+	 * @return root of the tree, or null if the range is empty
+	 */
+	private static Node link(Node[] nodes, int lo, int hi) {
+		if(lo == hi) return null;
+		
+		int mid = (lo + (hi - lo) / 2);
+		Node n = nodes[mid];
+		n.left = link(nodes, lo, mid);
+		n.right = link(nodes, mid+1, hi);
+		return fix(n);
+	}
+	
+	/**
+	 * Check whether the range [lo,hi) of the array is free of nulls
+	 * and in strictly increasing order (so also free of duplicates).
+	 * @param array array to check
+	 * @param lo index lower bound
+	 * @param hi index upper bound
+	 * @return whether the range could be used directly as the in-order sequence of a tree
+	 */
+	private static boolean isStrictlySorted(String[] array, int lo, int hi) {
+		for(int i = lo; i < hi; ++i) {
+			if(array[i] == null) return false;
+			if(i > lo && array[i-1].compareTo(array[i]) >= 0) return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Build a perfectly balanced tree from a strictly sorted range,
+	 * without comparing any strings.
+	 * @param array source, sorted in the range [lo,hi)
+	 * @param lo index lower bound
+	 * @param hi index upper bound
+	 * @return root of the new tree, or null if the range is empty
+	 */
+	private static Node buildBalanced(String[] array, int lo, int hi) {
+		if(lo == hi) return null;
+		
+		int mid = (lo + (hi - lo) / 2);
+		Node n = new Node(array[mid]);
+		n.left = buildBalanced(array, lo, mid);
+		n.right = buildBalanced(array, mid+1, hi);
+		return fix(n);
+	}
+	
 	/**
 	 * Copy all the strings from lexicon (in sorted order) into the array starting
 	 * at the given index.  Return the next index for (later) elements.
 	 * This is a helper method for {@link #toArray(String[])}.
+	 * It keeps its own stack, so a degenerate tree cannot overflow the call stack.
 	 * @param array destination of copy
 	 * @param root the subtree whose elements should be copied
 	 * @param index the index to place the next element
 	 * @return the next spot in the array to use after this subtree is done
 	 */
 	private int copyInto(String[] array, Node root, int index) {
-		if(root == null) return index;
-		
-		index = copyInto(array, root.left, index);
-		array[index++] = root.string;
-		
-		return copyInto(array, root.right, index);
+		Node[] stack = new Node[height(root)];
+		int depth = 0;
+		for(Node n = root; n != null || depth > 0; n = n.right) {
+			for(; n != null; n = n.left) stack[depth++] = n;
+			n = stack[--depth];
+			array[index++] = n.string;
+		}
+		return index;
 	}
 	
 	/**
@@ -303,6 +1798,16 @@ public class Lexicon {
 		return array;
 	}
 	
+	/**
+	 * Return an immutable, compactly stored copy of this lexicon.
+	 * Later changes to this lexicon do not affect the copy.
+	 * @return a frozen lexicon with the same strings
+	 */
+	public FrozenLexicon freeze() {
+		assert _wellFormed() : "invariant false at the start of freeze()";
+		return new FrozenLexicon(toArray(null), _manyNodes);
+	}
+	
 	public abstract static class TestInternals extends LockedTestCase {
 
 		Lexicon lex;
@@ -313,6 +1818,18 @@ public class Lexicon {
 			_doReport = false;
 		}
 		
+		/**
+		 * Set the sizes and heights of all nodes in a tree built by hand (which must not have cycles).
+		 * @param n root of the subtree
+		 * @return the size of the subtree
+		 */
+		private int fixSizes(Node n) {
+			if (n == null) return 0;
+			fixSizes(n.left);
+			fixSizes(n.right);
+			return fix(n).size;
+		}
+		
 		
 		
 		/** 
@@ -327,13 +1844,17 @@ public class Lexicon {
 			Node a3 = new Node("a");
 			
 			a1.left = a2;
+			fixSizes(a1);
 			assertEquals("malformed tree",-1, lex._checkInRange(a1, null, null));
 			a1.left=null;
 			a1.right = a2;
+			fixSizes(a1);
 			assertEquals("malformed tree",-1, lex._checkInRange(a1, null, null));
 			a1.left=a3;
+			fixSizes(a1);
 			assertEquals("malformed tree",-1, lex._checkInRange(a1, null, null));
 			a1.left = a1.right = null;
+			fixSizes(a1);
 			assertEquals("good tree",1, lex._checkInRange(a1, null, null));
 		}
 		
@@ -351,6 +1872,7 @@ public class Lexicon {
 			c.right = e;
 			e.left = d;
 			
+			fixSizes(c);
 			e.string = null;
 			assertEquals("null string in tree",-1, lex._checkInRange(c, null, null));
 			e.string = "e";
@@ -358,17 +1880,21 @@ public class Lexicon {
 			
 			e.left=f;
 			f.left=d;
+			fixSizes(c);
 			assertEquals("malformed tree",-1, lex._checkInRange(c, null, null));
 			f.left=null;
 			e.right=f;
 			e.left=d;
+			fixSizes(c);
 			assertEquals("good tree",6, lex._checkInRange(c, null, null));
 			
 			Node aa = new Node("aa");
 			a.left=aa;
+			fixSizes(c);
 			assertEquals("malformed tree",-1, lex._checkInRange(c, null, null));
 			a.left=null;
 			a.right=aa;
+			fixSizes(c);
 			assertEquals("good tree",7, lex._checkInRange(c, null, null));
 		}
 		
@@ -385,22 +1911,71 @@ public class Lexicon {
 			c.right = d;
 			d.right = e;
 			e.left=f;
+			fixSizes(a);
 			assertEquals("malformed tree",-1, lex._checkInRange(a, null, null));
 			e.left=null;
 			a.left=f;
+			fixSizes(a);
 			assertEquals("malformed tree",-1, lex._checkInRange(a, null, null));
 			a.left=b;
 			a.right=null;
+			fixSizes(a);
 			assertEquals("malformed tree",-1, lex._checkInRange(a, null, null));
 			b.right=null;
 			a.left=null;
 			a.right=c;
 			c.left=b;
+			fixSizes(a);
 			assertEquals("good tree",5, lex._checkInRange(a, null, null));
 		}
 		
 		
 		
+		public void test03() {
+			Node a = new Node("a");
+			Node b = new Node("b");
+			Node c = new Node("c");
+			b.left = a;
+			b.right = c;
+			assertEquals("wrong size", -1, lex._checkInRange(b, null, null));
+			b.size = 3;
+			assertEquals("good tree", 3, lex._checkInRange(b, null, null));
+			a.size = 0;
+			assertEquals("wrong size", -1, lex._checkInRange(b, null, null));
+			a.size = 1;
+			c.right = new Node("d");
+			assertEquals("wrong size", -1, lex._checkInRange(b, null, null));
+			c.size = 2;
+			assertEquals("wrong size", -1, lex._checkInRange(b, null, null));
+			b.size = 4;
+			assertEquals("good tree", 4, lex._checkInRange(b, null, null));
+		}
+		
+		public void test04() {
+			Node a = new Node("a");
+			Node b = new Node("b");
+			Node c = new Node("c");
+			b.left = a;
+			b.right = c;
+			c.weight = 5;
+			fixSizes(b);
+			assertEquals("good tree", 3, lex._checkInRange(b, null, null));
+			c.maxWeight = 4;
+			assertEquals("wrong maxWeight", -1, lex._checkInRange(b, null, null));
+			c.maxWeight = 5;
+			b.maxWeight = 0;
+			assertEquals("wrong maxWeight", -1, lex._checkInRange(b, null, null));
+			b.maxWeight = 6;
+			assertEquals("wrong maxWeight", -1, lex._checkInRange(b, null, null));
+			b.maxWeight = 5;
+			a.maxWeight = 5;
+			assertEquals("wrong maxWeight", -1, lex._checkInRange(b, null, null));
+			a.maxWeight = 0;
+			assertEquals("good tree", 3, lex._checkInRange(b, null, null));
+		}
+		
+		
+		
 		/** 
 		 * 1x: Tests for Invariant
 		 * 
@@ -436,10 +2011,12 @@ public class Lexicon {
 			lex._root = a1;
 			assertFalse(lex._wellFormed());
 			a1.right = a2;
+			fixSizes(a1);
 			assertEquals(Tb(460914689), lex._wellFormed());
 			a1.right = a1;
 			assertEquals(false, lex._wellFormed());
 			a1.right = b;
+			fixSizes(a1);
 			assertEquals(Tb(1835848904), lex._wellFormed());
 			
 			b.left = a1;
@@ -447,6 +2024,7 @@ public class Lexicon {
 			lex._root = b;
 			assertFalse(lex._wellFormed());
 			a1.right = null;
+			fixSizes(b);
 			assertTrue(lex._wellFormed());
 			
 			b.right = b;
@@ -460,6 +2038,7 @@ public class Lexicon {
 			c.left = a;
 			c.right = b;
 			lex._root = c;
+			fixSizes(c);
 			
 			lex._manyNodes = 3;			
 			assertEquals(Tb(1544974432), lex._wellFormed());
@@ -488,6 +2067,7 @@ public class Lexicon {
 			g.left = f;
 			h.right = i;
 			lex._manyNodes = 9;
+			fixSizes(e);
 			//you may want to draw a picture
 			assertEquals(Tb(447286989), lex._wellFormed());
 			
@@ -495,51 +2075,324 @@ public class Lexicon {
 			assertFalse("incorrect count", lex._wellFormed());
 			
 			a.left = new Node("ab");
+			fixSizes(e);
 			assertFalse(lex._wellFormed());
 			a.left = null;
+			fixSizes(e);
 			
 			b.left = new Node("a");
+			fixSizes(e);
 			assertFalse(lex._wellFormed());
 			b.left = null;
+			fixSizes(e);
 			b.right = new Node("cd");
+			fixSizes(e);
 			assertFalse(lex._wellFormed());
 			b.right = null;
+			fixSizes(e);
 			
 			--lex._manyNodes;
 			assertTrue(lex._wellFormed());
 			++lex._manyNodes;
 			
 			d.left = new Node("bc");
+			fixSizes(e);
 			assertFalse(lex._wellFormed());
 			d.left = null;
+			fixSizes(e);
 			d.right = new Node("ef");
+			fixSizes(e);
 			assertFalse(lex._wellFormed());
 			d.right = null;
+			fixSizes(e);
 			
 			f.left = new Node("de");
+			fixSizes(e);
 			assertFalse(lex._wellFormed());
 			f.left = null;
+			fixSizes(e);
 			f.right = new Node("gh");
+			fixSizes(e);
 			assertFalse(lex._wellFormed());
 			f.right = null;
+			fixSizes(e);
 			
 			g.right = new Node("hi");
+			fixSizes(e);
 			assertFalse(lex._wellFormed());
 			g.right = null;
+			fixSizes(e);
 			
 			--lex._manyNodes;
 			assertTrue(lex._wellFormed());
 			++lex._manyNodes;
 			
 			i.left = new Node("gh");
+			fixSizes(e);
 			assertFalse(lex._wellFormed());
 			i.left = null;
+			fixSizes(e);
 			i.right = new Node("hi");
+			fixSizes(e);
 			assertFalse(lex._wellFormed());
 			i.right = null;
+			fixSizes(e);
 			
 			--lex._manyNodes;
 			assertTrue(lex._wellFormed());			
 		}
+		
+		public void test15() {
+			Node a = new Node("a");
+			Node b = new Node("b");
+			Node c = new Node("c");
+			Node d = new Node("d");
+			lex._root = b;
+			b.left = a;
+			b.right = c;
+			c.right = d;
+			d.weight = 7;
+			lex._manyNodes = 4;
+			fixSizes(b);
+			assertTrue(lex._wellFormed());
+			
+			c.size = 1;
+			assertFalse("wrong size", lex._wellFormed());
+			c.size = 2;
+			b.size = 3;
+			assertFalse("wrong size", lex._wellFormed());
+			b.size = 4;
+			assertTrue(lex._wellFormed());
+			
+			c.maxWeight = 0;
+			assertFalse("wrong maxWeight", lex._wellFormed());
+			c.maxWeight = 7;
+			b.maxWeight = 8;
+			assertFalse("wrong maxWeight", lex._wellFormed());
+			b.maxWeight = 7;
+			d.weight = 2;
+			assertFalse("wrong maxWeight", lex._wellFormed());
+			fixSizes(b);
+			assertTrue(lex._wellFormed());
+		}
+		
+		
+		
+		/** 
+		 * 2x: Tests for balance checking
+		 * 
+		 * Dependencies: _checkInRange, invariant
+		 */
+		
+		public void test20() {
+			lex = new Lexicon(true);
+			Node a = new Node("a");
+			Node b = new Node("b");
+			Node c = new Node("c");
+			lex._root = a;
+			a.right = b;
+			b.right = c;
+			lex._manyNodes = 3;
+			fixSizes(a);
+			assertFalse("unbalanced chain", lex._wellFormed());
+			
+			a.right = null;
+			b.left = a;
+			b.right = c;
+			lex._root = b;
+			fixSizes(b);
+			b.height = 1;
+			assertFalse("wrong height", lex._wellFormed());
+			b.height = 2;
+			assertTrue(lex._wellFormed());
+			c.height = 2;
+			assertFalse("wrong height", lex._wellFormed());
+		}
+		
+		public void test21() {
+			lex = new Lexicon(true);
+			Node a = new Node("a");
+			Node b = new Node("b");
+			Node c = new Node("c");
+			Node d = new Node("d");
+			lex._root = c;
+			c.left = b;
+			b.left = a;
+			c.right = d;
+			b.height = 2;
+			c.height = 3;
+			lex._manyNodes = 4;
+			fixSizes(c);
+			assertTrue(lex._wellFormed());
+			
+			c.right = null;
+			lex._manyNodes = 3;
+			fixSizes(c);
+			assertFalse("unbalanced at c", lex._wellFormed());
+			
+			Lexicon plain = new Lexicon();
+			plain._root = c;
+			plain._manyNodes = 3;
+			assertTrue("only balanced lexicons check balance", plain._wellFormed());
+		}
+		
+		public void test22() {
+			lex = new Lexicon(true);
+			for (int i=0; i < 1000; ++i)
+				lex.add(10000 + i + "");
+			assertTrue(lex._wellFormed());
+			assertTrue("height " + lex._root.height + " too large", lex._root.height <= 15);
+		}
+		
+		public void test23() {
+			lex = new Lexicon(true);
+			String[] words = new String[1023];
+			for (int i=0; i < words.length; ++i)
+				words[i] = 10000 + i + "";
+			assertEquals(1023, lex.addAll(words, 0, words.length));
+			assertTrue(lex._wellFormed());
+			assertEquals("perfectly balanced", 10, lex._root.height);
+			assertEquals(0, lex.addAll(words, 0, words.length));
+			assertEquals(1023, lex._manyNodes);
+		}
+		
+		public void test24() {
+			String[] words = { "a", "b", "b", "c", "d" };
+			assertEquals(4, lex.addAll(words, 0, words.length));
+			assertTrue(lex._wellFormed());
+			
+			lex = new Lexicon(true);
+			words = new String[] { "a", "b", null };
+			assertEquals(2, lex.addAll(words, 0, 2));
+			try {
+				lex.addAll(words, 0, 3);
+				assertFalse("addAll should not accept a null element", true);
+			} catch (NullPointerException ex) {
+				assertTrue(lex._wellFormed());
+			}
+		}
+		
+		public void test25() {
+			// heights are kept even when the lexicon is not balanced
+			Node a = new Node("a");
+			Node b = new Node("b");
+			Node c = new Node("c");
+			lex._root = a;
+			a.right = b;
+			b.right = c;
+			lex._manyNodes = 3;
+			fixSizes(a);
+			assertTrue(lex._wellFormed());
+			a.height = 2;
+			assertFalse("wrong height", lex._wellFormed());
+		}
+		
+		
+		
+		/** 
+		 * 3x: Tests for sampled checking
+		 * 
+		 * Dependencies: invariant, add
+		 */
+		
+		public void test30() {
+			lex._manyNodes = 1;
+			assertFalse(lex._checkSample());
+			lex._manyNodes = 0;
+			assertTrue(lex._checkSample());
+			
+			Node a1 = new Node("a");
+			Node a2 = new Node("a");
+			lex._root = a1;
+			lex._manyNodes = 1;
+			assertTrue(lex._checkSample());
+			a1.string = null;
+			assertFalse("null word", lex._checkSample());
+			a1.string = "a";
+			a1.right = a2;
+			lex._manyNodes = 2;
+			fixSizes(a1);
+			assertFalse("duplicate", lex._checkSample());
+			a2.string = "b";
+			assertTrue(lex._checkSample());
+			a2.size = 2;
+			assertFalse("wrong size", lex._checkSample());
+			fixSizes(a1);
+			a2.height = 2;
+			assertFalse("wrong height", lex._checkSample());
+			fixSizes(a1);
+			a2.weight = 5;
+			assertFalse("wrong greatest weight", lex._checkSample());
+			fixSizes(a1);
+			a2.right = a1;
+			assertFalse("cycle", lex._checkSample());
+		}
+		
+		public void test31() {
+			lex = new Lexicon(true);
+			Node a = new Node("a");
+			Node b = new Node("b");
+			Node c = new Node("c");
+			lex._root = a;
+			a.right = b;
+			b.right = c;
+			lex._manyNodes = 3;
+			fixSizes(a);
+			assertFalse("unbalanced chain", lex._checkSample());
+			
+			lex = new Lexicon();
+			lex._root = a;
+			a.right = c;
+			c.right = b;
+			b.right = null;
+			lex._manyNodes = 3;
+			fixSizes(a);
+			assertFalse("out of order", lex._checkSample());
+			c.right = null;
+			c.left = b;
+			fixSizes(a);
+			assertTrue(lex._checkSample());
+		}
+		
+		public void test32() {
+			lex = new Lexicon(true);
+			lex._sampleChecks = true;
+			for (int i=0; i < 1000; ++i)
+				lex.add(10000 + i + "");
+			assertTrue(lex._wellFormed());
+			
+			Node n = lex._root;
+			while (n.left != null) n = n.left;
+			n.weight = 7; // the left-most leaf no longer agrees with its ancestors
+			int passed = 0;
+			while (lex._wellFormed()) ++passed;
+			assertTrue("found only after " + passed + " checks", passed < 1000);
+			n.weight = 0;
+			assertTrue(lex._wellFormed());
+		}
+		
+		
+		
+		/** 
+		 * 4x: Tests for removal
+		 * 
+		 * Dependencies: invariant, add
+		 */
+		
+		public void test40() {
+			lex = new Lexicon(true);
+			for (int i=0; i < 100; ++i)
+				lex.add(1000 + i + "");
+			for (int i=0; i < 100; i += 3) {
+				assertTrue(lex.remove(1000 + i + ""));
+				assertTrue(lex._wellFormed());
+			}
+			String[] doomed = new String[60];
+			for (int i=0; i < doomed.length; ++i)
+				doomed[i] = 1000 + i + "";
+			lex.removeAll(doomed, 0, doomed.length); // large enough to sweep
+			assertTrue(lex._wellFormed());
+			assertEquals(26, lex.size());
+		}
 	}
 }
@@ -0,0 +1,36 @@
+package edu.uwm.cs351;
+
+/**
+ * A position in a lexicon, between two adjacent strings (or before the first,
+ * or after the last), that can be moved forward and back one string at a time.
+ * Walking k strings in a row with a cursor takes time proportional to k
+ * (plus the height of the tree), rather than k descents from the root as
+ * calling {@link Lexicon#getNext(String)} in a loop does.
+ * <p>
+ * A cursor is obtained from {@link Lexicon#cursor()}.  If the lexicon gains
+ * or loses strings after the cursor was last positioned, moving it throws
+ * {@link java.util.ConcurrentModificationException}; seeking positions it afresh.
+ */
+public interface LexiconCursor {
+
+	/**
+	 * Position the cursor just before the least string not less than the given one.
+	 * @param str the string to seek, not null
+	 * @throws NullPointerException if str is null
+	 */
+	void seek(String str);
+
+	/**
+	 * Move the cursor forward past the next string.
+	 * @return the string moved past, or null (without moving) if the cursor is after the last string
+	 * @throws java.util.ConcurrentModificationException if the lexicon has changed
+	 */
+	String next();
+
+	/**
+	 * Move the cursor back past the previous string.
+	 * @return the string moved past, or null (without moving) if the cursor is before the first string
+	 * @throws java.util.ConcurrentModificationException if the lexicon has changed
+	 */
+	String prev();
+}
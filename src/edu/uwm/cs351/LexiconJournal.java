@@ -0,0 +1,180 @@
+package edu.uwm.cs351;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A write-ahead journal of changes to a lexicon file, so that saving a few
+ * new words appends a few lines instead of rewriting the whole file.
+ * <p>
+ * The journal uses the same format as the lexicon file: one word per line,
+ * followed by a tab and its weight if the weight is not zero.  Changes are
+ * collected with {@link #add(String, long)} and made durable by {@link #commit()},
+ * which appends them and forces them to disk.  On startup, {@link #replay(Lexicon)}
+ * applies the journal to the lexicon read from the main file; a line cut short
+ * by a crash during a commit is discarded.  {@link #compact(Path, Lexicon)}
+ * rewrites the main file from the lexicon (through a temporary file that is
+ * then renamed over it, so the main file is never half-written) and empties
+ * the journal.
+ */
+public class LexiconJournal {
+
+	private final Path _path;
+	private final List<String> _pending = new ArrayList<>();
+
+	/**
+	 * Create a journal kept in the given file.  Nothing is read or written yet.
+	 * @param path the journal file, conventionally the lexicon file name plus ".journal"
+	 */
+	public LexiconJournal(Path path) {
+		if (path == null) throw new NullPointerException("Journal path can't be null");
+		_path = path;
+	}
+
+	/** @return the journal file */
+	public Path getPath() {
+		return _path;
+	}
+
+	/**
+	 * Apply every complete entry in the journal to the lexicon, and cut off
+	 * any incomplete last line so that later entries start on a line of their own.
+	 * @param lexicon the lexicon read from the main file
+	 * @return the number of entries applied
+	 * @throws IOException if the journal exists but cannot be read
+	 */
+	public int replay(Lexicon lexicon) throws IOException {
+		byte[] bytes;
+		try {
+			bytes = Files.readAllBytes(_path);
+		} catch (NoSuchFileException e) {
+			return 0;
+		}
+		int end = bytes.length;
+		while (end > 0 && bytes[end-1] != '\n') --end;
+		if (end < bytes.length) {
+			try (FileChannel ch = FileChannel.open(_path, StandardOpenOption.WRITE)) {
+				ch.truncate(end);
+				ch.force(true);
+			}
+		}
+
+		int count = 0;
+		String text = new String(bytes, 0, end, StandardCharsets.UTF_8);
+		for (int from = 0; from < text.length(); ++count) {
+			int to = text.indexOf('\n', from);
+			String line = text.substring(from, to);
+			int tab = line.indexOf('\t');
+			if (tab < 0) lexicon.add(line);
+			else {
+				try {
+					lexicon.add(line.substring(0, tab), Long.parseLong(line.substring(tab+1).trim()));
+				} catch (NumberFormatException ex) {
+					throw new IOException("bad weight in journal " + _path + ": " + line);
+				}
+			}
+			from = to + 1;
+		}
+		return count;
+	}
+
+	/**
+	 * Record a change, to be written by the next commit.
+	 * @param word a word added (or re-weighted)
+	 * @param weight its weight
+	 */
+	public void add(String word, long weight) {
+		if (word == null) throw new NullPointerException("Cannot journal null");
+		_pending.add(weight == 0 ? word : word + "\t" + weight);
+	}
+
+	/** @return the number of changes recorded but not yet committed */
+	public int getPending() {
+		return _pending.size();
+	}
+
+	/**
+	 * Append all pending changes to the journal and force them to disk.
+	 * @return the number of changes written
+	 * @throws IOException if they cannot be written; they stay pending
+	 */
+	public int commit() throws IOException {
+		int count = _pending.size();
+		if (count == 0) return 0;
+		StringBuilder sb = new StringBuilder();
+		for (String line : _pending)
+			sb.append(line).append('\n');
+		ByteBuffer data = StandardCharsets.UTF_8.encode(sb.toString());
+		try (FileChannel ch = FileChannel.open(_path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND)) {
+			while (data.hasRemaining()) ch.write(data);
+			ch.force(false);
+		}
+		_pending.clear();
+		return count;
+	}
+
+	/**
+	 * Rewrite the main file to hold everything in the lexicon, then empty the journal.
+	 * Pending changes are dropped, since the lexicon already has them.
+	 * @param file the main lexicon file
+	 * @param lexicon the lexicon to write
+	 * @throws IOException if the file cannot be written; it is then left as it was
+	 */
+	public void compact(Path file, Lexicon lexicon) throws IOException {
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		try {
+			try (FileChannel ch = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				Writer w = new BufferedWriter(Channels.newWriter(ch, StandardCharsets.UTF_8.newEncoder(), 1 << 16));
+				try {
+					lexicon.consumeAllWeighted((word, weight) -> {
+						try {
+							w.write(word);
+							if (weight != 0) w.write("\t" + weight);
+							w.write('\n');
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+					});
+				} catch (UncheckedIOException e) {
+					throw e.getCause();
+				}
+				w.flush();
+				ch.force(true);
+			}
+			try {
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException | RuntimeException e) {
+			// the main file was not replaced, so the copy is of no use
+			try {
+				Files.deleteIfExists(temp);
+			} catch (IOException suppressed) {
+				e.addSuppressed(suppressed);
+			}
+			throw e;
+		}
+		// the journal is only emptied once the main file holds everything in it
+		try (FileChannel ch = FileChannel.open(_path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			ch.truncate(0);
+			ch.force(true);
+		}
+		_pending.clear();
+	}
+}
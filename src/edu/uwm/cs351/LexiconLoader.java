@@ -0,0 +1,172 @@
+package edu.uwm.cs351;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Loads a lexicon from a UTF-8 text file with one word per line, each
+ * optionally followed by a tab and its weight.
+ * <p>
+ * The file is mapped into memory and cut into chunks at line boundaries,
+ * which are decoded and split into words in parallel.  If the words come out
+ * in strictly increasing order (as in a file the driver saved), they are
+ * handed straight to {@link Lexicon#addAll}, which builds the tree directly;
+ * otherwise they are first sorted in parallel and duplicates dropped.
+ * Weights are applied afterwards.
+ */
+public final class LexiconLoader {
+
+	/** Chunks are about this many bytes, so small files are not split needlessly. */
+	private static final int MIN_CHUNK = 1 << 20;
+
+	private LexiconLoader() {}
+
+	/**
+	 * The words and weights decoded from one chunk of the file.
+	 */
+	private static class Chunk {
+		final List<String> words = new ArrayList<>();
+		final List<String> weighted = new ArrayList<>();
+		final List<Long> weights = new ArrayList<>();
+		final List<String> badWeights = new ArrayList<>();
+	}
+
+	/**
+	 * Load the words (and weights) in a file into a lexicon.
+	 * @param file the file to read
+	 * @param lexicon the lexicon to add the words to, ideally empty
+	 * @param warnings receives a message about each line whose weight cannot be parsed
+	 * @return the number of words added, not counting duplicates or words already present
+	 * @throws IOException if the file cannot be read
+	 * @throws java.nio.charset.CharacterCodingException if the file is not UTF-8
+	 * @throws NullPointerException if any argument is null
+	 */
+	public static int load(Path file, Lexicon lexicon, Consumer<String> warnings) throws IOException {
+		if (lexicon == null || warnings == null) throw new NullPointerException("Lexicon and warnings can't be null");
+		ByteBuffer data;
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (ch.size() > Integer.MAX_VALUE) throw new IOException("lexicon file too large to map: " + file);
+			data = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+		}
+
+		int[] bounds = split(data);
+		Chunk[] chunks = new Chunk[bounds.length - 1];
+		try {
+			IntStream.range(0, chunks.length).parallel().forEach(i -> chunks[i] = decode(data, bounds[i], bounds[i+1]));
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		int count = 0;
+		for (Chunk c : chunks) count += c.words.size();
+		String[] words = new String[count];
+		int n = 0;
+		for (Chunk c : chunks) {
+			for (String w : c.words) words[n++] = w;
+			for (String w : c.badWeights) warnings.accept("Ignoring bad weight for " + w);
+		}
+
+		int distinct = count;
+		if (!isStrictlySorted(words)) {
+			Arrays.parallelSort(words);
+			distinct = removeDuplicates(words);
+		}
+		int added = lexicon.addAll(words, 0, distinct);
+		for (Chunk c : chunks)
+			for (int i=0; i < c.weighted.size(); ++i)
+				lexicon.add(c.weighted.get(i), c.weights.get(i));
+		return added;
+	}
+
+	/**
+	 * Choose where to cut the data: every cut but the last is just after a newline.
+	 * @param data the file contents
+	 * @return increasing offsets, starting with 0 and ending with the length of the data
+	 */
+	private static int[] split(ByteBuffer data) {
+		int length = data.limit();
+		int pieces = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() * 4, length / MIN_CHUNK));
+		int[] bounds = new int[pieces + 1];
+		int n = 1;
+		for (int i=1; i < pieces; ++i) {
+			int cut = Math.max((int)((long)length * i / pieces), bounds[n-1]);
+			while (cut < length && data.get(cut) != '\n') ++cut;
+			if (cut < length) bounds[n++] = cut + 1;
+		}
+		bounds[n++] = length;
+		return Arrays.copyOf(bounds, n);
+	}
+
+	/**
+	 * Decode the lines in part of the data.
+	 * @param data the file contents
+	 * @param start offset of the first byte of a line
+	 * @param end offset just after a newline, or the end of the data
+	 * @return the words and weights on those lines
+	 * @throws UncheckedIOException wrapping the decoding error if the bytes are not UTF-8
+	 */
+	private static Chunk decode(ByteBuffer data, int start, int end) {
+		CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPORT)
+				.onUnmappableCharacter(CodingErrorAction.REPORT);
+		CharBuffer chars;
+		try {
+			chars = decoder.decode(data.duplicate().position(start).limit(end));
+		} catch (CharacterCodingException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		Chunk result = new Chunk();
+		int length = chars.limit();
+		for (int from = 0; from < length;) {
+			int to = from;
+			while (to < length && chars.get(to) != '\n') ++to;
+			int lineEnd = to > from && chars.get(to - 1) == '\r' ? to - 1 : to;
+			int tab = from;
+			while (tab < lineEnd && chars.get(tab) != '\t') ++tab;
+			String word = chars.subSequence(from, tab).toString();
+			result.words.add(word);
+			if (tab < lineEnd) {
+				try {
+					result.weights.add(Long.parseLong(chars.subSequence(tab + 1, lineEnd).toString().trim()));
+					result.weighted.add(word);
+				} catch (NumberFormatException e) {
+					result.badWeights.add(word);
+				}
+			}
+			from = to + 1;
+		}
+		return result;
+	}
+
+	private static boolean isStrictlySorted(String[] words) {
+		for (int i=1; i < words.length; ++i)
+			if (words[i-1].compareTo(words[i]) >= 0) return false;
+		return true;
+	}
+
+	/**
+	 * Remove adjacent duplicates from a sorted array, moving the distinct
+	 * strings to the front.
+	 * @return the number of distinct strings
+	 */
+	private static int removeDuplicates(String[] sorted) {
+		int n = 0;
+		for (int i=0; i < sorted.length; ++i)
+			if (n == 0 || !sorted[n-1].equals(sorted[i])) sorted[n++] = sorted[i];
+		return n;
+	}
+}
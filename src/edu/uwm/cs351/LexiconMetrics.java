@@ -0,0 +1,245 @@
+package edu.uwm.cs351;
+import java.util.concurrent.atomic.LongAdder;
+
+import junit.framework.TestCase;
+
+/**
+ * Optional counters for the hot paths of {@link Lexicon}: how often each
+ * operation runs, how many nodes it visits, how many characters its string
+ * comparisons examine, how many strings it finds, and how long it takes.
+ * Together these tell whether a slow lookup comes from a deep tree, long
+ * shared prefixes or a huge prefix range.
+ * <p>
+ * Metrics are off unless the JVM is started with <code>-Dlexicon.metrics=true</code>.
+ * The flag is a static final constant, so when it is false the JIT compiles the
+ * recording code away entirely; nothing is allocated either way.
+ * The counters are shared by all lexicons and safe to update from many threads.
+ * Use {@link #snapshot()} to read them.
+ */
+public final class LexiconMetrics {
+
+	/** Whether metrics are being recorded, fixed when the class is loaded. */
+	public static final boolean ENABLED = Boolean.getBoolean("lexicon.metrics");
+
+	/** The operations measured. */
+	public enum Op { ADD, CONTAINS, GET_NEXT, CONSUME_WITH_PREFIX }
+
+	private static final int BUCKETS = 64; // bucket b counts latencies in [2^b, 2^(b+1)) ns
+
+	private static final Op[] OPS = Op.values();
+	private static final LongAdder[] calls = adders(OPS.length);
+	private static final LongAdder[] nodes = adders(OPS.length);
+	private static final LongAdder[] chars = adders(OPS.length);
+	private static final LongAdder[] results = adders(OPS.length);
+	private static final LongAdder[][] latency = new LongAdder[OPS.length][];
+	static {
+		for (int i=0; i < OPS.length; ++i) latency[i] = adders(BUCKETS);
+	}
+
+	private LexiconMetrics() {}
+
+	private static LongAdder[] adders(int n) {
+		LongAdder[] result = new LongAdder[n];
+		for (int i=0; i < n; ++i) result[i] = new LongAdder();
+		return result;
+	}
+
+	/**
+	 * Start timing an operation.
+	 * @return the start time, or zero if metrics are off
+	 */
+	static long start() {
+		return ENABLED ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Count the characters a comparison of two strings examines.
+	 * @return the length of their common prefix plus one (for the deciding character)
+	 */
+	static int comparedLength(String a, String b) {
+		int max = Math.min(a.length(), b.length());
+		int k = 0;
+		while (k < max && a.charAt(k) == b.charAt(k)) ++k;
+		return k + 1;
+	}
+
+	/**
+	 * Record one operation, if metrics are on.
+	 * @param op the operation
+	 * @param start the time from {@link #start()}
+	 * @param visited number of nodes visited
+	 * @param compared number of characters examined by comparisons
+	 * @param found number of strings found (or added)
+	 */
+	static void record(Op op, long start, int visited, long compared, int found) {
+		if (!ENABLED) return;
+		tally(op, System.nanoTime() - start, visited, compared, found);
+	}
+	
+	/**
+	 * Add one operation to the counters, whether or not metrics are on.
+	 * @param op the operation
+	 * @param elapsed nanoseconds it took
+	 * @param visited number of nodes visited
+	 * @param compared number of characters examined by comparisons
+	 * @param found number of strings found (or added)
+	 */
+	static void tally(Op op, long elapsed, int visited, long compared, int found) {
+		elapsed = Math.max(1, elapsed);
+		int i = op.ordinal();
+		calls[i].increment();
+		nodes[i].add(visited);
+		chars[i].add(compared);
+		results[i].add(found);
+		latency[i][63 - Long.numberOfLeadingZeros(elapsed)].increment();
+	}
+
+	/**
+	 * Get a copy of the counters as they are now.  Operations running
+	 * concurrently may be partly counted.
+	 * @return a snapshot of all counters
+	 */
+	public static Snapshot snapshot() {
+		return new Snapshot();
+	}
+
+	/** Set all counters back to zero. */
+	public static void reset() {
+		for (int i=0; i < OPS.length; ++i) {
+			calls[i].reset();
+			nodes[i].reset();
+			chars[i].reset();
+			results[i].reset();
+			for (LongAdder a : latency[i]) a.reset();
+		}
+	}
+
+	/**
+	 * The counters for every operation at one moment.
+	 */
+	public static final class Snapshot {
+		private final long[] calls = new long[OPS.length];
+		private final long[] nodes = new long[OPS.length];
+		private final long[] chars = new long[OPS.length];
+		private final long[] results = new long[OPS.length];
+		private final long[][] latency = new long[OPS.length][BUCKETS];
+
+		private Snapshot() {
+			for (int i=0; i < OPS.length; ++i) {
+				calls[i] = LexiconMetrics.calls[i].sum();
+				nodes[i] = LexiconMetrics.nodes[i].sum();
+				chars[i] = LexiconMetrics.chars[i].sum();
+				results[i] = LexiconMetrics.results[i].sum();
+				for (int b=0; b < BUCKETS; ++b)
+					latency[i][b] = LexiconMetrics.latency[i][b].sum();
+			}
+		}
+
+		/** @param op operation @return number of times it ran */
+		public long getCalls(Op op) { return calls[op.ordinal()]; }
+
+		/** @param op operation @return total nodes it visited */
+		public long getNodesVisited(Op op) { return nodes[op.ordinal()]; }
+
+		/** @param op operation @return total characters its comparisons examined (not counted for prefix walks) */
+		public long getCharsCompared(Op op) { return chars[op.ordinal()]; }
+
+		/** @param op operation @return total strings it found or added */
+		public long getResults(Op op) { return results[op.ordinal()]; }
+
+		/**
+		 * Get the latency histogram for an operation.
+		 * @param op operation
+		 * @return array whose element b counts the calls taking from 2^b up to 2^(b+1) nanoseconds
+		 */
+		public long[] getLatencyHistogram(Op op) {
+			return latency[op.ordinal()].clone();
+		}
+
+		/**
+		 * Estimate a latency percentile for an operation, to within a factor of two.
+		 * @param op operation
+		 * @param fraction the fraction of calls, e.g. 0.99
+		 * @return nanoseconds that at least that fraction of calls took no longer than, or 0 if none ran
+		 */
+		public long getLatencyPercentile(Op op, double fraction) {
+			long[] h = latency[op.ordinal()];
+			long target = (long)Math.ceil(fraction * calls[op.ordinal()]);
+			long seen = 0;
+			for (int b=0; b < BUCKETS; ++b) {
+				seen += h[b];
+				if (seen > 0 && seen >= target) return b == 62 ? Long.MAX_VALUE : 1L << (b + 1);
+			}
+			return 0;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			for (Op op : OPS) {
+				long n = getCalls(op);
+				if (n == 0) continue;
+				sb.append(String.format("%-20s calls %d, nodes/call %.1f, chars/call %.1f, results/call %.1f, p50 <%dns, p99 <%dns%n",
+						op, n, (double)getNodesVisited(op) / n, (double)getCharsCompared(op) / n, (double)getResults(op) / n,
+						getLatencyPercentile(op, 0.5), getLatencyPercentile(op, 0.99)));
+			}
+			return sb.length() == 0 ? "no operations recorded" : sb.toString().trim();
+		}
+	}
+
+	/**
+	 * Tests of the counters that drive them directly, so that they run
+	 * whether or not metrics are on.
+	 */
+	public abstract static class TestInternals extends TestCase {
+
+		private final Op op = Op.GET_NEXT;
+
+		@Override
+		protected void setUp() throws Exception {
+			super.setUp();
+			reset();
+		}
+
+		public void test00() {
+			Snapshot s = snapshot();
+			assertEquals(0, s.getCalls(op));
+			assertEquals(0, s.getLatencyPercentile(op, 0.5));
+			assertEquals("no operations recorded", s.toString());
+		}
+
+		public void test01() {
+			tally(op, 100, 5, 20, 1);
+			tally(op, 3000, 7, 30, 0);
+			Snapshot s = snapshot();
+			assertEquals(2, s.getCalls(op));
+			assertEquals(12, s.getNodesVisited(op));
+			assertEquals(50, s.getCharsCompared(op));
+			assertEquals(1, s.getResults(op));
+			assertEquals(0, s.getCalls(Op.ADD));
+			long[] h = s.getLatencyHistogram(op);
+			assertEquals(1, h[6]); // 100ns is in [64, 128)
+			assertEquals(1, h[11]); // 3000ns is in [2048, 4096)
+			h[6] = 0;
+			assertEquals(1, s.getLatencyHistogram(op)[6]);
+		}
+
+		public void test02() {
+			tally(op, 100, 5, 20, 1);
+			tally(op, 3000, 7, 30, 0);
+			Snapshot s = snapshot();
+			assertEquals(128, s.getLatencyPercentile(op, 0.5));
+			assertEquals(4096, s.getLatencyPercentile(op, 1.0));
+			tally(op, 0, 0, 0, 0); // counted as 1ns
+			assertEquals(1, snapshot().getLatencyHistogram(op)[0]);
+			assertEquals(2, s.getCalls(op));
+		}
+
+		public void test03() {
+			tally(op, 100, 5, 20, 1);
+			reset();
+			assertEquals(0, snapshot().getCalls(op));
+			assertEquals(0, snapshot().getLatencyHistogram(op)[6]);
+		}
+	}
+}
@@ -0,0 +1,271 @@
+package edu.uwm.cs351;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Read-only set of strings, sorted lexicographically, queried directly
+ * from a memory-mapped index file.  Nothing is copied onto the heap when the
+ * file is opened; lookups binary search the mapped region and strings are only
+ * created for results.
+ * <p>
+ * The index file format (all big-endian) is:
+ * <ul>
+ * <li> the int {@link #MAGIC}
+ * <li> the int number of strings, n
+ * <li> n+1 ints: the offset (in chars) of each string in the character data,
+ *      followed by the total length of the character data
+ * <li> the character data: all the strings, in increasing order, as UTF-16 chars
+ * </ul>
+ * Strings are stored as chars rather than UTF-8 bytes so that the stored
+ * order is exactly String.compareTo order.  Because a single mapping is used,
+ * the file must be smaller than 2GB.
+ */
+public class MappedLexicon {
+
+	/** The first four bytes of every index file: "LXI1". */
+	public static final int MAGIC = 0x4C584931;
+
+	private static final int HEADER = 8;
+
+	private final IntBuffer _offsets;
+	private final CharBuffer _chars;
+	private final int _manyWords;
+
+	/**
+	 * Check the invariant: the offsets start at zero and end at the end of
+	 * the character data.  That they never decrease, and the order of the
+	 * strings, take linear time to check, so those are only checked when
+	 * the file is opened.
+	 * Returns false if any problem is found.  It uses
+	 * {@link #_report(String)} to report any problem.
+	 * @return whether invariant is currently true.
+	 */
+	private boolean _wellFormed() {
+		if (_manyWords < 0) return _report("negative count " + _manyWords);
+		if (_offsets.limit() != _manyWords + 1) return _report("offset table has wrong size");
+		if (_offsets.get(0) != 0) return _report("first offset is " + _offsets.get(0));
+		if (_offsets.get(_manyWords) != _chars.limit())
+			return _report("last offset is " + _offsets.get(_manyWords) + " but data has " + _chars.limit() + " chars");
+		return true;
+	}
+
+	private boolean _checkSorted() {
+		for (int i=1; i < _manyWords; ++i)
+			if (compare(i-1, get(i)) >= 0) return _report("strings out of order at " + i);
+		return true;
+	}
+
+	private static boolean _doReport = true;
+
+	/**
+	 * Used to report an error found when checking the invariant.
+	 * @param error string to print to report the exact error found
+	 * @return false always
+	 */
+	private boolean _report(String error) {
+		if (_doReport) System.out.println("Invariant error found: " + error);
+		return false;
+	}
+
+	private MappedLexicon(ByteBuffer buffer) throws IOException {
+		if (buffer.limit() < HEADER || buffer.getInt(0) != MAGIC) throw new IOException("not a lexicon index file");
+		_manyWords = buffer.getInt(4);
+		long dataStart = HEADER + 4L * (_manyWords + 1L);
+		if (_manyWords < 0 || dataStart > buffer.limit()) throw new IOException("corrupt lexicon index file");
+		_offsets = buffer.position(HEADER).slice().limit(4 * (_manyWords + 1)).asIntBuffer();
+		_chars = buffer.position((int)dataStart).slice().asCharBuffer();
+		if (!_wellFormed()) throw new IOException("corrupt lexicon index file");
+		// with the ends checked, offsets that never decrease are all within the data
+		for (int i=0; i < _manyWords; ++i)
+			if (_offsets.get(i) > _offsets.get(i+1))
+				throw new IOException("corrupt lexicon index file: offsets decrease at " + i);
+		assert _checkSorted() : "index file strings are not in order";
+	}
+
+	/**
+	 * Open an index file.  The file is mapped read-only and stays valid
+	 * after the channel is closed.
+	 * @param file path of the index file
+	 * @return lexicon backed by the file
+	 * @throws IOException if the file cannot be mapped or is not an index file
+	 */
+	public static MappedLexicon open(Path file) throws IOException {
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (ch.size() > Integer.MAX_VALUE) throw new IOException("index file too large to map: " + file);
+			MappedByteBuffer buffer = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+			return new MappedLexicon(buffer);
+		}
+	}
+
+	/**
+	 * Write an index file holding the given strings.
+	 * @param file path of the index file to (over)write
+	 * @param sorted strings in strictly increasing order, none null
+	 * @param count number of strings to use from the front of the array
+	 * @throws IOException if the file cannot be written
+	 * @throws IllegalArgumentException if the strings are not strictly increasing
+	 */
+	public static void write(Path file, String[] sorted, int count) throws IOException {
+		long chars = 0;
+		for (int i=0; i < count; ++i) {
+			if (i > 0 && sorted[i-1].compareTo(sorted[i]) >= 0)
+				throw new IllegalArgumentException("strings not in increasing order: " + sorted[i-1] + ", " + sorted[i]);
+			chars += sorted[i].length();
+		}
+		long size = HEADER + 4L * (count + 1L) + 2 * chars;
+		if (size > Integer.MAX_VALUE) throw new IOException("lexicon too large for an index file");
+
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			buffer.putInt(MAGIC).putInt(count);
+			int offset = 0;
+			for (int i=0; i < count; ++i) {
+				buffer.putInt(offset);
+				offset += sorted[i].length();
+			}
+			buffer.putInt(offset);
+			for (int i=0; i < count; ++i) {
+				String s = sorted[i];
+				for (int j=0; j < s.length(); ++j)
+					buffer.putChar(s.charAt(j));
+			}
+			buffer.force();
+		}
+	}
+
+	/**
+	 * Compare the string at the given index with another string, without creating it.
+	 * @param index index of a stored string
+	 * @param s string to compare with
+	 * @return negative, zero or positive as the stored string is less, equal or greater than s
+	 */
+	private int compare(int index, String s) {
+		int start = _offsets.get(index);
+		int length = _offsets.get(index + 1) - start;
+		int n = Math.min(length, s.length());
+		for (int i=0; i < n; ++i) {
+			int c = _chars.get(start + i) - s.charAt(i);
+			if (c != 0) return c;
+		}
+		return length - s.length();
+	}
+
+	private boolean startsWith(int index, String prefix) {
+		int start = _offsets.get(index);
+		if (_offsets.get(index + 1) - start < prefix.length()) return false;
+		for (int i=0; i < prefix.length(); ++i)
+			if (_chars.get(start + i) != prefix.charAt(i)) return false;
+		return true;
+	}
+
+	private String get(int index) {
+		int start = _offsets.get(index);
+		char[] result = new char[_offsets.get(index + 1) - start];
+		for (int i=0; i < result.length; ++i)
+			result[i] = _chars.get(start + i);
+		return new String(result);
+	}
+
+	/**
+	 * Find the number of stored strings less than (or, if inclusive, at most) s.
+	 * @param s string to search for
+	 * @param inclusive whether a string equal to s counts
+	 * @return index of the first string greater than (or equal to, if not inclusive) s
+	 */
+	private int search(String s, boolean inclusive) {
+		int lo = 0, hi = _manyWords;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			int c = compare(mid, s);
+			if (c < 0 || inclusive && c == 0) lo = mid + 1;
+			else hi = mid;
+		}
+		return lo;
+	}
+
+	/** Gets the size of this lexicon.
+	 * @return the count of strings in this lexicon
+	 */
+	public int size() {
+		assert _wellFormed() : "invariant false at start of size()";
+		return _manyWords;
+	}
+
+	/**
+	 * Gets the [lexicographically] least string in the lexicon.
+	 * @return the least string or null if empty
+	 */
+	public String getMin() {
+		assert _wellFormed() : "invariant false at start of getMin()";
+		return _manyWords == 0 ? null : get(0);
+	}
+
+	/**
+	 * Checks if the given string is in the lexicon.
+	 * @param str the string to search for (maybe null)
+	 * @return true if str is in the lexicon, false otherwise
+	 */
+	public boolean contains(String str) {
+		assert _wellFormed() : "invariant false at start of contains()";
+		if (str == null) return false;
+		int i = search(str, false);
+		return i < _manyWords && compare(i, str) == 0;
+	}
+
+	/**
+	 * Gets the next [lexicographically] greater string than the given string.
+	 * @param str the string of which to find the next greatest
+	 * @return the next string greater than str
+	 * @throws NullPointerException if str is null
+	 */
+	public String getNext(String str) {
+		assert _wellFormed() : "invariant false at start of getNext()";
+		if (str == null) throw new NullPointerException("Cannot get next of null");
+		int i = search(str, true);
+		return i < _manyWords ? get(i) : null;
+	}
+
+	/**
+	 * Accept into the consumer all strings in this lexicon.
+	 * @param consumer the consumer to accept the strings
+	 * @throws NullPointerException if consumer is null
+	 */
+	public void consumeAll(Consumer<String> consumer) {
+		consumeAllWithPrefix(consumer,"");
+	}
+
+	/**
+	 * Accept into the consumer all strings that start with the given prefix.
+	 * @param consumer the consumer to accept the strings
+	 * @param prefix the prefix to find all strings starting with
+	 * @throws NullPointerException if consumer or prefix is null
+	 */
+	public void consumeAllWithPrefix(Consumer<String> consumer, String prefix) {
+		assert _wellFormed() : "invariant false at start of consumeAllWithPrefix()";
+		if (consumer == null) throw new NullPointerException("Can't accept into null consumer");
+		if (prefix == null) throw new NullPointerException("Prefix can't be null");
+		for (int i = search(prefix, false); i < _manyWords && startsWith(i, prefix); ++i)
+			consumer.accept(get(i));
+	}
+
+	/**
+	 * Return an array of all the strings in this lexicon (in order).
+	 * @param array to use unless null or too small
+	 * @return array copied into
+	 */
+	public String[] toArray(String[] array) {
+		assert _wellFormed() : "invariant false at the start of toArray()";
+		if (array == null || array.length < _manyWords) array = new String[_manyWords];
+		for (int i=0; i < _manyWords; ++i)
+			array[i] = get(i);
+		return array;
+	}
+}
@@ -0,0 +1,143 @@
+package edu.uwm.cs351;
+import java.util.Arrays;
+
+/**
+ * Matches strings against a wildcard pattern, as used for crossword
+ * and word-game queries.  In a pattern:
+ * <ul>
+ * <li> <code>?</code> matches any one character
+ * <li> <code>*</code> matches any sequence of characters, including none
+ * <li> <code>[abc]</code> matches one of the characters listed, and may include
+ *      ranges such as <code>[a-z]</code>; <code>[!abc]</code> or <code>[^abc]</code>
+ *      matches any one character not listed
+ * <li> <code>\</code> makes the next character match only itself
+ * <li> any other character matches only itself
+ * </ul>
+ * The pattern is run as a nondeterministic automaton: the state after reading
+ * a prefix is the set of positions in the pattern that the prefix can reach.
+ * An empty set means no extension of the prefix can match, and without
+ * a <code>*</code> this also rules out every string longer than the pattern.
+ */
+class PatternMatcher extends PrefixMatcher {
+
+	private static final char[] ANY = { Character.MIN_VALUE, Character.MAX_VALUE };
+
+	private final char[][] ranges; // per element, pairs of inclusive bounds; null for *
+	private final boolean[] negated;
+	private final String literalPrefix;
+	private boolean[][] states; // states[d] is the set of positions after d characters
+
+	/**
+	 * Compile a pattern.
+	 * @param pattern the pattern to match, not null
+	 * @throws IllegalArgumentException if the pattern is malformed
+	 */
+	PatternMatcher(String pattern) {
+		char[][] r = new char[pattern.length()][];
+		boolean[] neg = new boolean[pattern.length()];
+		StringBuilder prefix = new StringBuilder();
+		boolean literal = true;
+		int m = 0;
+		for (int i=0; i < pattern.length(); ++i, ++m) {
+			char c = pattern.charAt(i);
+			if (c == '*') {
+				if (m > 0 && r[m-1] == null) --m; // ** is the same as *
+				else r[m] = null;
+				literal = false;
+				continue;
+			} else if (c == '?') {
+				r[m] = ANY;
+				literal = false;
+				continue;
+			} else if (c == '[') {
+				i = compileSet(pattern, i, r, neg, m);
+				literal = false;
+				continue;
+			} else if (c == '\\') {
+				if (++i == pattern.length()) throw new IllegalArgumentException("Pattern ends with an escape: " + pattern);
+				c = pattern.charAt(i);
+			}
+			r[m] = new char[] { c, c };
+			if (literal) prefix.append(c);
+		}
+		ranges = Arrays.copyOf(r, m);
+		negated = Arrays.copyOf(neg, m);
+		literalPrefix = prefix.toString();
+		states = new boolean[literalPrefix.length() + 2][];
+		states[0] = new boolean[m + 1];
+		states[0][0] = true;
+		close(states[0]);
+	}
+
+	/**
+	 * Compile the character set starting at the given position into element m.
+	 * @return the position of the closing bracket
+	 */
+	private static int compileSet(String pattern, int start, char[][] r, boolean[] neg, int m) {
+		int i = start + 1;
+		if (i < pattern.length() && (pattern.charAt(i) == '!' || pattern.charAt(i) == '^')) {
+			neg[m] = true;
+			++i;
+		}
+		StringBuilder bounds = new StringBuilder();
+		// a ] right after the opening bracket is a member, not the end
+		for (boolean first = true; i < pattern.length() && (first || pattern.charAt(i) != ']'); first = false) {
+			char lo = pattern.charAt(i++);
+			char hi = lo;
+			if (i + 1 < pattern.length() && pattern.charAt(i) == '-' && pattern.charAt(i+1) != ']') {
+				hi = pattern.charAt(i+1);
+				i += 2;
+				if (hi < lo) throw new IllegalArgumentException("Backwards range " + lo + "-" + hi + " in pattern: " + pattern);
+			}
+			bounds.append(lo).append(hi);
+		}
+		if (i == pattern.length()) throw new IllegalArgumentException("Unclosed [ in pattern: " + pattern);
+		r[m] = bounds.toString().toCharArray();
+		return i;
+	}
+
+	/**
+	 * Gets the characters every matching string must start with.
+	 * @return the literal characters before the first wildcard
+	 */
+	String literalPrefix() {
+		return literalPrefix;
+	}
+
+	private boolean matches(int element, char c) {
+		char[] r = ranges[element];
+		boolean in = false;
+		for (int k=0; k < r.length && !in; k += 2)
+			in = r[k] <= c && c <= r[k+1];
+		return in != negated[element];
+	}
+
+	/** Add to the set every position reachable by letting a * match nothing. */
+	private void close(boolean[] set) {
+		for (int i=0; i < ranges.length; ++i)
+			if (set[i] && ranges[i] == null) set[i+1] = true;
+	}
+
+	@Override
+	boolean step(int depth, char c) {
+		if (depth + 1 == states.length) states = Arrays.copyOf(states, states.length * 2);
+		boolean[] prev = states[depth];
+		boolean[] set = states[depth + 1];
+		if (set == null) set = states[depth + 1] = new boolean[ranges.length + 1];
+		else Arrays.fill(set, false);
+
+		boolean any = false;
+		for (int i=0; i < ranges.length; ++i) {
+			if (!prev[i]) continue;
+			if (ranges[i] == null) set[i] = any = true;
+			else if (matches(i, c)) set[i+1] = any = true;
+		}
+		close(set);
+		return any;
+	}
+
+	@Override
+	boolean accepts(int depth) {
+		return states[depth][ranges.length];
+	}
+}
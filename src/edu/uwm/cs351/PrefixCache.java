@@ -0,0 +1,171 @@
+package edu.uwm.cs351;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of prefix query results: for each cached prefix, the
+ * strings starting with it, in order.  The budget limits the total number
+ * of strings held across all entries rather than the number of entries, so a
+ * short prefix with a huge result cannot crowd out many small ones unnoticed.
+ * An empty result (a prefix nothing starts with) is charged as one string,
+ * so that caching many misses still uses up the budget.
+ * When the budget is exceeded, the least recently used entries are evicted.
+ * <p>
+ * The cache does not watch the lexicon; whoever adds a string must call
+ * {@link #invalidate(String)}, which drops exactly the entries whose prefix
+ * the new string starts with.
+ */
+public class PrefixCache {
+
+	private final LinkedHashMap<String,String[]> _entries = new LinkedHashMap<>(16, 0.75f, true);
+	private final int _budget;
+	private int _manyStrings; // total cost of all cached results
+	private long _hits, _misses, _evictions;
+
+	/**
+	 * Check the invariant: the count of cached strings is the total cost
+	 * of the cached results and is within the budget.
+	 * Returns false if any problem is found.  It uses
+	 * {@link #_report(String)} to report any problem.
+	 * @return whether invariant is currently true.
+	 */
+	private boolean _wellFormed() {
+		if (_budget < 0) return _report("negative budget " + _budget);
+		int count = 0;
+		for (String[] result : _entries.values()) {
+			if (result == null) return _report("null result cached");
+			count += cost(result);
+		}
+		if (count != _manyStrings) return _report("count is " + _manyStrings + " but cache holds " + count);
+		if (count > _budget) return _report("cache holds " + count + " strings, more than budget " + _budget);
+		return true;
+	}
+
+	private static boolean _doReport = true;
+
+	/**
+	 * Used to report an error found when checking the invariant.
+	 * @param error string to print to report the exact error found
+	 * @return false always
+	 */
+	private boolean _report(String error) {
+		if (_doReport) System.out.println("Invariant error found: " + error);
+		return false;
+	}
+
+	/**
+	 * Get what a result is charged against the budget.
+	 * @param result a cached result
+	 * @return its length, but at least one
+	 */
+	private static int cost(String[] result) {
+		return Math.max(1, result.length);
+	}
+
+	/**
+	 * Create an empty cache.
+	 * @param budget the greatest number of strings to hold, across all entries
+	 * @throws IllegalArgumentException if budget is negative
+	 */
+	public PrefixCache(int budget) {
+		if (budget < 0) throw new IllegalArgumentException("Budget can't be negative: " + budget);
+		_budget = budget;
+		assert _wellFormed() : "invariant false at end of constructor";
+	}
+
+	/**
+	 * Get the cached result for a prefix, counting a hit or a miss.
+	 * The array must not be modified.
+	 * @param prefix the prefix to look up
+	 * @return the strings starting with the prefix, or null if not cached
+	 */
+	public String[] get(String prefix) {
+		assert _wellFormed() : "invariant false at start of get()";
+		String[] result = _entries.get(prefix);
+		if (result == null) ++_misses;
+		else ++_hits;
+		return result;
+	}
+
+	/**
+	 * Cache the result for a prefix, evicting least recently used entries as needed.
+	 * A result larger than the whole budget is not cached.
+	 * @param prefix the prefix, not null
+	 * @param result all strings starting with the prefix, in order; not null
+	 * @throws NullPointerException if prefix or result is null
+	 */
+	public void put(String prefix, String[] result) {
+		assert _wellFormed() : "invariant false at start of put()";
+		if (prefix == null || result == null) throw new NullPointerException("Can't cache null");
+		remove(prefix);
+		if (cost(result) <= _budget) {
+			_entries.put(prefix, result);
+			_manyStrings += cost(result);
+			Iterator<String[]> it = _entries.values().iterator();
+			while (_manyStrings > _budget) {
+				_manyStrings -= cost(it.next());
+				it.remove();
+				++_evictions;
+			}
+		}
+		assert _wellFormed() : "invariant false at end of put()";
+	}
+
+	private void remove(String prefix) {
+		String[] old = _entries.remove(prefix);
+		if (old != null) _manyStrings -= cost(old);
+	}
+
+	/**
+	 * Drop every cached result that a newly added string belongs in:
+	 * those for the prefixes of the string.
+	 * @param str the string added, not null
+	 */
+	public void invalidate(String str) {
+		assert _wellFormed() : "invariant false at start of invalidate()";
+		if (_entries.size() <= str.length()) {
+			for (Iterator<Map.Entry<String,String[]>> it = _entries.entrySet().iterator(); it.hasNext();) {
+				Map.Entry<String,String[]> e = it.next();
+				if (str.startsWith(e.getKey())) {
+					_manyStrings -= cost(e.getValue());
+					it.remove();
+				}
+			}
+		} else {
+			for (int i=0; i <= str.length(); ++i)
+				remove(str.substring(0, i));
+		}
+		assert _wellFormed() : "invariant false at end of invalidate()";
+	}
+
+	/** Drop every cached result. */
+	public void clear() {
+		_entries.clear();
+		_manyStrings = 0;
+	}
+
+	/** @return the number of lookups that found a cached result */
+	public long getHits() { return _hits; }
+
+	/** @return the number of lookups that did not */
+	public long getMisses() { return _misses; }
+
+	/** @return the number of entries dropped to stay within the budget */
+	public long getEvictions() { return _evictions; }
+
+	/** @return the number of prefixes cached */
+	public int size() { return _entries.size(); }
+
+	/** @return the total number of strings cached, counting each empty result as one */
+	public int getCachedStrings() { return _manyStrings; }
+
+	@Override
+	public String toString() {
+		long lookups = _hits + _misses;
+		return "hits " + _hits + ", misses " + _misses +
+				(lookups == 0 ? "" : String.format(" (%.1f%% hit rate)", 100.0 * _hits / lookups)) +
+				", evictions " + _evictions + ", " + size() + " prefixes holding " + _manyStrings +
+				" of " + _budget + " strings";
+	}
+}
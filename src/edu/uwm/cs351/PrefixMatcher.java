@@ -0,0 +1,28 @@
+package edu.uwm.cs351;
+
+/**
+ * A matcher that reads a string one character at a time and can tell, after
+ * any prefix, whether some extension of that prefix could still be accepted.
+ * Its state after each number of characters is kept separately, so a caller
+ * walking strings in order can back up to the prefix a string shares with the
+ * one before it instead of starting over, and can skip every string with a
+ * prefix the matcher has rejected.
+ */
+abstract class PrefixMatcher {
+	
+	/**
+	 * Compute the state after depth+1 characters from the state after depth characters.
+	 * States for greater depths are forgotten.
+	 * @param depth number of characters already read
+	 * @param c the next character
+	 * @return false if no string with this prefix can be accepted
+	 */
+	abstract boolean step(int depth, char c);
+	
+	/**
+	 * Determine whether the string read so far is accepted.
+	 * @param depth the length of the string read so far
+	 * @return whether the string is accepted
+	 */
+	abstract boolean accepts(int depth);
+}
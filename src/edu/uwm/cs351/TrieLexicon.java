@@ -0,0 +1,428 @@
+package edu.uwm.cs351;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Set of strings, sorted lexicographically, stored in a compressed prefix tree
+ * (radix trie).  Each edge is labeled with a non-empty string, and a node without
+ * a word of its own always has at least two children, so the trie has at most
+ * twice as many nodes as words.  Strings that share a prefix share the nodes
+ * for it, and finding all the strings with a prefix costs only the length
+ * of the prefix before the matching strings are enumerated.
+ * <p>
+ * The methods mirror those of {@link Lexicon}.
+ */
+public class TrieLexicon {
+
+	private static final Node[] NO_CHILDREN = new Node[0];
+
+	private static class Node {
+		String label;
+		boolean isWord;
+		Node[] children = NO_CHILDREN; // sorted by first character of label
+		Node (String l, boolean w) { label = l; isWord = w; }
+	}
+
+	private Node _root;
+	private int _manyWords;
+
+	/**
+	 * Check the invariant.
+	 * Returns false if any problem is found.  It uses
+	 * {@link #_report(String)} to report any problem.
+	 * @return whether invariant is currently true.
+	 */
+	private boolean _wellFormed() {
+		if (_root == null) return _report("root is null");
+		if (!"".equals(_root.label)) return _report("root label should be empty but is " + _root.label);
+		int n = _checkSubtrie(_root, 0);
+		if (n < 0) return false; // problem already reported
+		if (n != _manyWords) return _report("_manyWords is " + _manyWords + " but should be " + n);
+		return true;
+	}
+
+	private static boolean _doReport = true;
+
+	/**
+	 * Used to report an error found when checking the invariant.
+	 * @param error string to print to report the exact error found
+	 * @return false always
+	 */
+	private boolean _report(String error) {
+		if (_doReport) System.out.println("Invariant error found: " + error);
+		return false;
+	}
+
+	private int _reportNeg(String error) {
+		_report(error);
+		return -1;
+	}
+
+	/**
+	 * Check that the children of every node in the subtrie have non-empty labels
+	 * and are sorted by distinct first characters, and that every node other
+	 * than the root is either a word or has at least two children.
+	 * Report any errors.  If there is an error return a negative number.
+	 * Otherwise return the number of words in the subtrie.
+	 * @param n the root of the subtrie to check, not null
+	 * @param depth number of nodes above n, used to guard against cycles
+	 * @return number of words in the subtrie
+	 */
+	private int _checkSubtrie(Node n, int depth) {
+		if (n.children == null) return _reportNeg("null children array");
+		if (depth > 0 && !n.isWord && n.children.length < 2)
+			return _reportNeg("node " + n.label + " should have been merged with its only child");
+
+		int count = n.isWord ? 1 : 0;
+		for (int i=0; i < n.children.length; ++i) {
+			Node c = n.children[i];
+			if (c == null) return _reportNeg("null child under " + n.label);
+			if (c.label == null || c.label.isEmpty()) return _reportNeg("empty label under " + n.label);
+			if (i > 0 && n.children[i-1].label.charAt(0) >= c.label.charAt(0))
+				return _reportNeg("children of " + n.label + " out of order at " + c.label);
+			if (depth > _manyWords) return _reportNeg("cycle detected at " + c.label);
+			int sub = _checkSubtrie(c, depth + 1);
+			if (sub < 0) return -1;
+			count += sub;
+		}
+		return count;
+	}
+
+	/**
+	 * Creates an empty lexicon.
+	 */
+	public TrieLexicon() {
+		_root = new Node("", false);
+		_manyWords = 0;
+		assert _wellFormed() : "invariant false at end of constructor";
+	}
+
+	/** Gets the size of this lexicon.
+	 * @return the count of strings in this lexicon
+	 */
+	public int size() {
+		assert _wellFormed() : "invariant false at start of size()";
+		return _manyWords;
+	}
+
+	/**
+	 * Find the index of the child whose label starts with the given character.
+	 * @param n node whose children to search
+	 * @param ch first character to look for
+	 * @return index of the child, or (-(insertion point) - 1) if there is none
+	 */
+	private static int findChild(Node n, char ch) {
+		int lo = 0, hi = n.children.length;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			char c = n.children[mid].label.charAt(0);
+			if (c == ch) return mid;
+			if (c < ch) lo = mid + 1;
+			else hi = mid;
+		}
+		return -lo - 1;
+	}
+
+	/**
+	 * Append the least word in the subtrie rooted at n (including n's own label).
+	 * @param n a node, not null
+	 * @param sb builder holding the string leading to n, not including n's label
+	 * @return the least word
+	 */
+	private static String minWord(Node n, StringBuilder sb) {
+		sb.append(n.label);
+		while (!n.isWord) {
+			n = n.children[0];
+			sb.append(n.label);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Gets the [lexicographically] least string in the lexicon.
+	 * @return the least string or null if empty
+	 */
+	public String getMin() {
+		assert _wellFormed() : "invariant false at start of getMin()";
+		if (_manyWords == 0) return null;
+		return minWord(_root, new StringBuilder());
+	}
+
+	/**
+	 * Checks if the given string is in the lexicon.
+	 * @param str the string to search for (maybe null)
+	 * @return true if str is in the lexicon, false otherwise
+	 */
+	public boolean contains(String str) {
+		assert _wellFormed() : "invariant false at start of contains()";
+		if (str == null) return false;
+
+		Node n = _root;
+		int pos = 0;
+		while (pos < str.length()) {
+			int i = findChild(n, str.charAt(pos));
+			if (i < 0) return false;
+			n = n.children[i];
+			if (!str.startsWith(n.label, pos)) return false;
+			pos += n.label.length();
+		}
+		return n.isWord;
+	}
+
+	/**
+	 * Gets the next [lexicographically] greater string than the given string.
+	 * @param str the string of which to find the next greatest
+	 * @return the next string greater than str
+	 * @throws NullPointerException if str is null
+	 */
+	public String getNext(String str) {
+		assert _wellFormed() : "invariant false at start of getNext()";
+		if (str == null) throw new NullPointerException("Cannot get next of null");
+
+		// The nodes along the path that matches str, with the index of the
+		// child taken at each, so we can back up to a later sibling.
+		Node[] path = new Node[str.length() + 1];
+		int[] taken = new int[str.length() + 1];
+		int[] lengths = new int[str.length() + 1];
+		int depth = 0;
+		StringBuilder sb = new StringBuilder();
+
+		Node n = _root;
+		int pos = 0;
+		for (;;) {
+			int i;
+			if (pos == str.length()) {
+				i = 0; // everything strictly below n is greater
+			} else {
+				i = findChild(n, str.charAt(pos));
+				if (i >= 0) {
+					Node c = n.children[i];
+					int k = commonPrefix(c.label, str, pos);
+					if (k == c.label.length()) {
+						path[depth] = n; taken[depth] = i; lengths[depth] = sb.length(); ++depth;
+						sb.append(c.label);
+						pos += k;
+						n = c;
+						continue;
+					}
+					// str diverges from (or ends inside) the label
+					if (pos + k < str.length() && c.label.charAt(k) < str.charAt(pos + k)) ++i;
+				}
+				else i = -i - 1;
+			}
+			if (i < n.children.length) return minWord(n.children[i], sb);
+
+			// nothing at or after position i under n: back up to a later sibling
+			for (;;) {
+				if (depth == 0) return null;
+				--depth;
+				n = path[depth];
+				sb.setLength(lengths[depth]);
+				i = taken[depth] + 1;
+				if (i < n.children.length) return minWord(n.children[i], sb);
+			}
+		}
+	}
+
+	private static int commonPrefix(String label, String str, int pos) {
+		int max = Math.min(label.length(), str.length() - pos);
+		int k = 0;
+		while (k < max && label.charAt(k) == str.charAt(pos + k)) ++k;
+		return k;
+	}
+
+	/**
+	 * Accept into the consumer all strings in this lexicon.
+	 * @param consumer the consumer to accept the strings
+	 * @throws NullPointerException if consumer is null
+	 */
+	public void consumeAll(Consumer<String> consumer) {
+		consumeAllWithPrefix(consumer,"");
+	}
+
+	/**
+	 * Accept into the consumer all strings that start with the given prefix.
+	 * Only the nodes along the prefix are examined before enumerating the matches.
+	 * @param consumer the consumer to accept the strings
+	 * @param prefix the prefix to find all strings starting with
+	 * @throws NullPointerException if consumer or prefix is null
+	 */
+	public void consumeAllWithPrefix(Consumer<String> consumer, String prefix) {
+		assert _wellFormed() : "invariant false at start of consumeAllWithPrefix()";
+		if (consumer == null) throw new NullPointerException("Can't accept into null consumer");
+		if (prefix == null) throw new NullPointerException("Prefix can't be null");
+
+		Node n = _root;
+		int pos = 0;
+		StringBuilder sb = new StringBuilder();
+		if (prefix.isEmpty()) {
+			consumeSubtrie(consumer, _root, sb);
+			return;
+		}
+		for (;;) {
+			int i = findChild(n, prefix.charAt(pos));
+			if (i < 0) return;
+			Node c = n.children[i];
+			int k = commonPrefix(c.label, prefix, pos);
+			if (pos + k < prefix.length() && k < c.label.length()) return;
+			if (pos + k == prefix.length()) {
+				// prefix ends at or inside c's label: every word under c matches
+				consumeSubtrie(consumer, c, sb);
+				return;
+			}
+			sb.append(c.label);
+			pos += k;
+			n = c;
+		}
+	}
+
+	/**
+	 * Accept all words in the subtrie in order.
+	 * @param consumer the consumer to accept the strings
+	 * @param n root of the subtrie
+	 * @param sb the string leading to n, not including n's label; restored on return
+	 */
+	private static void consumeSubtrie(Consumer<String> consumer, Node n, StringBuilder sb) {
+		int len = sb.length();
+		sb.append(n.label);
+		if (n.isWord) consumer.accept(sb.toString());
+		for (Node c : n.children)
+			consumeSubtrie(consumer, c, sb);
+		sb.setLength(len);
+	}
+
+	/**
+	 * Accept into the consumer (in order) all strings in this lexicon that are
+	 * within the given edit distance of a word.  The trie is searched depth first
+	 * in step with a Levenshtein automaton for the word, and a subtrie is
+	 * abandoned as soon as the path to it is too far from the word.
+	 * @param word the word to find strings near
+	 * @param maxEdits the greatest edit distance allowed
+	 * @param consumer the consumer to accept the strings
+	 * @throws NullPointerException if word or consumer is null
+	 * @throws IllegalArgumentException if maxEdits is negative
+	 */
+	public void consumeWithinDistance(String word, int maxEdits, Consumer<String> consumer) {
+		assert _wellFormed() : "invariant false at start of consumeWithinDistance()";
+		if (word == null) throw new NullPointerException("Cannot find strings near null");
+		if (consumer == null) throw new NullPointerException("Can't accept into null consumer");
+		if (maxEdits < 0) throw new IllegalArgumentException("Edit distance can't be negative: " + maxEdits);
+		consumeAccepted(new LevenshteinMatcher(word, maxEdits), _root, new StringBuilder(), consumer);
+	}
+
+	/**
+	 * Accept all words in the subtrie that the matcher accepts, pruning
+	 * any child whose label leads to a prefix the matcher rejects.
+	 * @param matcher matcher with a state for every character in sb
+	 * @param n root of the subtrie
+	 * @param sb the string leading to n, not including n's label; restored on return
+	 * @param consumer the consumer to accept the strings
+	 */
+	private static void consumeAccepted(PrefixMatcher matcher, Node n, StringBuilder sb, Consumer<String> consumer) {
+		int len = sb.length();
+		for (int i=0; i < n.label.length(); ++i) {
+			if (!matcher.step(sb.length(), n.label.charAt(i))) {
+				sb.setLength(len);
+				return;
+			}
+			sb.append(n.label.charAt(i));
+		}
+		if (n.isWord && matcher.accepts(sb.length())) consumer.accept(sb.toString());
+		for (Node c : n.children)
+			consumeAccepted(matcher, c, sb, consumer);
+		sb.setLength(len);
+	}
+
+	/// Mutators
+
+	/**
+	 * Add a new string to the lexicon. If it already exists, do nothing and return false.
+	 * @param str the string to add (must not be null)
+	 * @return true if str was added, false otherwise
+	 * @throws NullPointerException if str is null
+	 */
+	public boolean add(String str) {
+		assert _wellFormed() : "invariant false at start of add()";
+		if (str == null) throw new NullPointerException("cannot add null");
+
+		Node n = _root;
+		int pos = 0;
+		while (pos < str.length()) {
+			int i = findChild(n, str.charAt(pos));
+			if (i < 0) {
+				insertChild(n, -i - 1, new Node(str.substring(pos), true));
+				pos = str.length();
+				n = null;
+				break;
+			}
+			Node c = n.children[i];
+			int k = commonPrefix(c.label, str, pos);
+			if (k < c.label.length()) {
+				// split c's edge after k characters
+				Node mid = new Node(c.label.substring(0, k), pos + k == str.length());
+				c.label = c.label.substring(k);
+				mid.children = new Node[] { c };
+				n.children[i] = mid;
+				if (!mid.isWord) insertChild(mid, -findChild(mid, str.charAt(pos + k)) - 1,
+						new Node(str.substring(pos + k), true));
+				n = null;
+				break;
+			}
+			pos += k;
+			n = c;
+		}
+		if (n != null) {
+			if (n.isWord) return false;
+			n.isWord = true;
+		}
+		++_manyWords;
+
+		assert _wellFormed() : "invariant false at end of add()";
+		return true;
+	}
+
+	private static void insertChild(Node n, int index, Node child) {
+		Node[] children = Arrays.copyOf(n.children, n.children.length + 1);
+		System.arraycopy(children, index, children, index + 1, n.children.length - index);
+		children[index] = child;
+		n.children = children;
+	}
+
+	/**
+	 * Add all strings in the array into this lexicon from the range [lo,hi).
+	 * Return number of strings actually added; some might not be added
+	 * if they are duplicates.
+	 * @param array source
+	 * @param lo index lower bound
+	 * @param hi index upper bound
+	 * @return number of strings added
+	 * @throws NullPointerException if array is null
+	 */
+	public int addAll(String[] array, int lo, int hi) {
+		assert _wellFormed() : "invariant false at start of addAll()";
+		if (array == null) throw new NullPointerException("Cannot add from null array");
+
+		int count = 0;
+		for (int i = lo; i < hi; ++i)
+			if (add(array[i])) ++count;
+
+		assert _wellFormed() : "invariant false at end of addAll()";
+		return count;
+	}
+
+	/**
+	 * Return an array of all the strings in this lexicon (in order).
+	 * @param array to use unless null or too small
+	 * @return array copied into
+	 */
+	public String[] toArray(String[] array) {
+		assert _wellFormed() : "invariant false at the start of toArray()";
+
+		if (array == null || array.length < _manyWords) array = new String[_manyWords];
+		String[] result = array;
+		int[] index = new int[1];
+		consumeSubtrie(s -> result[index[0]++] = s, _root, new StringBuilder());
+
+		return array;
+	}
+}